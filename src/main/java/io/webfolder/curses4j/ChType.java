@@ -0,0 +1,122 @@
+package io.webfolder.curses4j;
+
+import static java.lang.System.getProperty;
+import static java.util.Locale.ENGLISH;
+
+/**
+ * Pure Java <code>chtype</code> codec.
+ *
+ * ncurses and PDCurses pack the character, the video attributes and the color
+ * pair of a cell into different bits. The layout is picked once, from the
+ * <code>curses4j.chtype</code> system property (<code>ncurses</code> or
+ * <code>pdcurses</code>) or else from the operating system, so encoding and
+ * decoding cells never needs the native library.
+ *
+ * @see <a href=
+ *      "https://invisible-island.net/ncurses/man/curs_attr.3x.html">ncurses
+ *      curs_attr</a>
+ */
+public final class ChType {
+
+    /**
+     * <code>true</code> when cells use the PDCurses bit layout,
+     * <code>false</code> for ncurses.
+     */
+    public static final boolean PDCURSES = pdcurses();
+
+    public static final int A_NORMAL     = 0x00000000;
+
+    public static final int A_CHARTEXT   = PDCURSES ? 0x0000ffff : 0x000000ff;
+    public static final int A_COLOR      = PDCURSES ? 0xff000000 : 0x0000ff00;
+    public static final int A_ATTRIBUTES = PDCURSES ? 0xffff0000 : 0xffffff00;
+
+    public static final int A_ALTCHARSET = PDCURSES ? 0x00010000 : 0x00400000;
+    public static final int A_RIGHT      = PDCURSES ? 0x00020000 : 0x10000000;
+    public static final int A_LEFT       = PDCURSES ? 0x00040000 : 0x04000000;
+    public static final int A_ITALIC     = PDCURSES ? 0x00080000 : 0x80000000;
+    public static final int A_UNDERLINE  = PDCURSES ? 0x00100000 : 0x00020000;
+    public static final int A_REVERSE    = PDCURSES ? 0x00200000 : 0x00040000;
+    public static final int A_BLINK      = PDCURSES ? 0x00400000 : 0x00080000;
+    public static final int A_BOLD       = PDCURSES ? 0x00800000 : 0x00200000;
+
+    public static final int A_STANDOUT   = PDCURSES ? A_REVERSE | A_BOLD : 0x00010000;
+
+    public static final int A_DIM        = PDCURSES ? A_NORMAL : 0x00100000;
+    public static final int A_INVIS      = PDCURSES ? A_NORMAL : 0x00800000;
+    public static final int A_PROTECT    = PDCURSES ? A_NORMAL : 0x01000000;
+
+    public static final int A_HORIZONTAL = PDCURSES ? A_NORMAL : 0x02000000;
+    public static final int A_LOW        = PDCURSES ? A_NORMAL : 0x08000000;
+    public static final int A_TOP        = PDCURSES ? A_NORMAL : 0x20000000;
+    public static final int A_VERTICAL   = PDCURSES ? A_NORMAL : 0x40000000;
+
+    private static final int COLOR_SHIFT = PDCURSES ? 24 : 8;
+
+    private ChType() {
+    }
+
+    private static boolean pdcurses() {
+        String layout = getProperty("curses4j.chtype");
+        if (layout == null) {
+            return getProperty("os.name").toLowerCase(ENGLISH).startsWith("windows");
+        }
+        switch (layout.toLowerCase(ENGLISH)) {
+            case "pdcurses":
+                return true;
+            case "ncurses":
+                return false;
+            default:
+                throw new IllegalArgumentException("curses4j.chtype must be ncurses or pdcurses: " + layout);
+        }
+    }
+
+    /**
+     * Builds a cell from a character, video attributes and a color pair.
+     */
+    public static int encode(int ch, int attrs, int pair) {
+        return (ch & A_CHARTEXT) | (attrs & A_ATTRIBUTES & ~A_COLOR) | colorPair(pair);
+    }
+
+    public static int colorPair(int n) {
+        return (n << COLOR_SHIFT) & A_COLOR;
+    }
+
+    public static int pairNumber(int ch) {
+        return (ch & A_COLOR) >>> COLOR_SHIFT;
+    }
+
+    public static int charOf(int ch) {
+        return ch & A_CHARTEXT;
+    }
+
+    /**
+     * @return <code>c</code> as the character of a cell, or <code>'?'</code>
+     *         if it is a control character, a surrogate or does not fit in
+     *         {@link #A_CHARTEXT}
+     */
+    static int printable(char c) {
+        return c <= A_CHARTEXT && !Character.isISOControl(c) && !Character.isSurrogate(c) ? c : '?';
+    }
+
+    /**
+     * @return the cell with a blank in place of char 0, which would end a
+     *         <code>mvwaddchnstr</code> run early
+     */
+    static int nonEmpty(int ch) {
+        return (ch & A_CHARTEXT) == 0 ? ch | ' ' : ch;
+    }
+
+    /**
+     * @return video attributes of the cell without its color pair
+     */
+    public static int attrsOf(int ch) {
+        return ch & A_ATTRIBUTES & ~A_COLOR;
+    }
+
+    /**
+     * Maps a VT100 line drawing character to its alternate character set cell.
+     */
+    public static int acs(int ch) {
+        return ch | A_ALTCHARSET;
+    }
+}
@@ -0,0 +1,113 @@
+package io.webfolder.curses4j;
+
+import static io.webfolder.curses4j.Curses.ERR;
+import static io.webfolder.curses4j.Curses.OK;
+import static java.nio.ByteBuffer.allocateDirect;
+import static java.nio.ByteOrder.nativeOrder;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Reusable off-heap draw command stream.
+ *
+ * Commands are encoded as native-order ints (opcode followed by its
+ * operands) and replayed by <code>curses4j_exec_batch</code> in a single
+ * native call. Opcodes must be kept in sync with <code>curses4j.c</code>.
+ *
+ * A failure of an automatic replay, when the buffer is full or before another
+ * operation on the window, is remembered and reported by the next
+ * {@link #flush(CursesWindow)}.
+ */
+final class CommandBuffer {
+
+    static final int OP_ADDCH   = 1;
+    static final int OP_MVADDCH = 2;
+    static final int OP_MOVE    = 3;
+    static final int OP_ATTRON  = 4;
+    static final int OP_ATTROFF = 5;
+    static final int OP_ATTRSET = 6;
+
+    private static final int CAPACITY = 16 * 1024; /* in ints */
+
+    private final ByteBuffer buffer = allocateDirect(CAPACITY * Integer.BYTES).order(nativeOrder());
+
+    private final IntBuffer ops = buffer.asIntBuffer();
+
+    private int pending;
+
+    private boolean failed;
+
+    void addch(CursesWindow peer, int ch) {
+        reserve(peer, 2);
+        ops.put(OP_ADDCH).put(ch);
+    }
+
+    void mvaddch(CursesWindow peer, int y, int x, int ch) {
+        reserve(peer, 4);
+        ops.put(OP_MVADDCH).put(y).put(x).put(ch);
+    }
+
+    void move(CursesWindow peer, int y, int x) {
+        reserve(peer, 3);
+        ops.put(OP_MOVE).put(y).put(x);
+    }
+
+    void attr(CursesWindow peer, int op, int attrs) {
+        reserve(peer, 2);
+        ops.put(op).put(attrs);
+    }
+
+    /**
+     * @return number of commands waiting to be replayed
+     */
+    int pending() {
+        return pending;
+    }
+
+    /**
+     * Replays the pending commands.
+     *
+     * @return <code>ERR</code> if this or an automatic replay since the last
+     *         flush failed
+     */
+    int flush(CursesWindow peer) {
+        int ret = replay(peer);
+        if (failed) {
+            failed = false;
+            ret = ERR;
+        }
+        return ret;
+    }
+
+    /**
+     * Replays the pending commands, keeping a failure for the next flush.
+     */
+    void sync(CursesWindow peer) {
+        if (replay(peer) == ERR) {
+            failed = true;
+        }
+    }
+
+    private int replay(CursesWindow peer) {
+        int len = ops.position();
+        if (len == 0) {
+            return OK;
+        }
+        ((Buffer) ops).clear();
+        int commands = pending;
+        pending = 0;
+        Object event = Jfr.flush();
+        int ret = peer.curses4j_exec_batch(peer.peer, buffer, len);
+        Jfr.flush(event, "batch", commands);
+        return ret;
+    }
+
+    private void reserve(CursesWindow peer, int len) {
+        if (ops.remaining() < len) {
+            sync(peer);
+        }
+        pending++;
+    }
+}
@@ -1,39 +1,12 @@
 package io.webfolder.curses4j;
 
-import static io.webfolder.curses4j.CursesWindow.curses4j_beep;
-import static io.webfolder.curses4j.CursesWindow.curses4j_can_change_color;
-import static io.webfolder.curses4j.CursesWindow.curses4j_color_pair;
-import static io.webfolder.curses4j.CursesWindow.curses4j_color_pairs;
-import static io.webfolder.curses4j.CursesWindow.curses4j_colors;
-import static io.webfolder.curses4j.CursesWindow.curses4j_cols;
-import static io.webfolder.curses4j.CursesWindow.curses4j_copywin;
-import static io.webfolder.curses4j.CursesWindow.curses4j_create_console;
-import static io.webfolder.curses4j.CursesWindow.curses4j_def_shell_mode;
-import static io.webfolder.curses4j.CursesWindow.curses4j_disable_resize;
-import static io.webfolder.curses4j.CursesWindow.curses4j_dupwin;
-import static io.webfolder.curses4j.CursesWindow.curses4j_echo;
-import static io.webfolder.curses4j.CursesWindow.curses4j_endwin;
-import static io.webfolder.curses4j.CursesWindow.curses4j_flash;
-import static io.webfolder.curses4j.CursesWindow.curses4j_flushinp;
-import static io.webfolder.curses4j.CursesWindow.curses4j_has_colors;
-import static io.webfolder.curses4j.CursesWindow.curses4j_init_color;
-import static io.webfolder.curses4j.CursesWindow.curses4j_init_pair;
-import static io.webfolder.curses4j.CursesWindow.curses4j_is_termresized;
-import static io.webfolder.curses4j.CursesWindow.curses4j_lines;
-import static io.webfolder.curses4j.CursesWindow.curses4j_napms;
-import static io.webfolder.curses4j.CursesWindow.curses4j_newpad;
-import static io.webfolder.curses4j.CursesWindow.curses4j_noecho;
-import static io.webfolder.curses4j.CursesWindow.curses4j_overlay;
-import static io.webfolder.curses4j.CursesWindow.curses4j_overwrite;
-import static io.webfolder.curses4j.CursesWindow.curses4j_pair_number;
-import static io.webfolder.curses4j.CursesWindow.curses4j_pdc_acs;
-import static io.webfolder.curses4j.CursesWindow.curses4j_resize_term;
-import static io.webfolder.curses4j.CursesWindow.curses4j_start_color;
-import static io.webfolder.curses4j.CursesWindow.curses4j_typeahead;
-import static io.webfolder.curses4j.CursesWindow.curses4j_unctrl;
-import static io.webfolder.curses4j.CursesWindow.curses4j_unget_wch;
+import static io.webfolder.curses4j.CursesWindow.SCREEN;
 import static io.webfolder.curses4j.Window.stdscr;
 
+import java.nio.IntBuffer;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * curses api doc.:
  * 
@@ -141,6 +114,9 @@ public class Curses {
     public static final int KEY_SUSPEND   = 0x195; /* suspend key */
     public static final int KEY_UNDO      = 0x196; /* undo key */
 
+    public static final int KEY_RESIZE    = ChType.PDCURSES ? 0x222 : 0x19a; /* Window resize */
+    public static final int KEY_MOUSE     = ChType.PDCURSES ? 0x21b : 0x199; /* Mouse event, see getmouse */
+
      public static final short COLOR_BLACK   = 0;
      public static final short COLOR_RED     = 1;
      public static final short COLOR_GREEN   = 2;
@@ -156,33 +132,33 @@ public class Curses {
      public static final int ERR          = -1;
      public static final int OK           =  0;
 
-     /* Video attribute macros */
-     public static final int A_NORMAL     = 0x00000000;
-     public static final int A_COLOR      = 0xff000000;
-     public static final int A_ALTCHARSET = 0x00010000;
-     public static final int A_RIGHT      = 0x00020000;
-     public static final int A_LEFT       = 0x00040000;
-     public static final int A_ITALIC     = 0x00080000;
-     public static final int A_UNDERLINE  = 0x00100000;
-     public static final int A_REVERSE    = 0x00200000;
-     public static final int A_BLINK      = 0x00400000;
-     public static final int A_BOLD       = 0x00800000;
-
-     public static final int A_ATTRIBUTES = 0xffff0000;
-     public static final int A_CHARTEXT   = 0x0000ffff;
+     /* Video attribute macros, see ChType for the ncurses and PDCurses layouts */
+     public static final int A_NORMAL     = ChType.A_NORMAL;
+     public static final int A_COLOR      = ChType.A_COLOR;
+     public static final int A_ALTCHARSET = ChType.A_ALTCHARSET;
+     public static final int A_RIGHT      = ChType.A_RIGHT;
+     public static final int A_LEFT       = ChType.A_LEFT;
+     public static final int A_ITALIC     = ChType.A_ITALIC;
+     public static final int A_UNDERLINE  = ChType.A_UNDERLINE;
+     public static final int A_REVERSE    = ChType.A_REVERSE;
+     public static final int A_BLINK      = ChType.A_BLINK;
+     public static final int A_BOLD       = ChType.A_BOLD;
+
+     public static final int A_ATTRIBUTES = ChType.A_ATTRIBUTES;
+     public static final int A_CHARTEXT   = ChType.A_CHARTEXT;
 
      public static final int A_LEFTLINE   = A_LEFT;
      public static final int A_RIGHTLINE  = A_RIGHT;
-     public static final int A_STANDOUT   = A_REVERSE | A_BOLD; /* X/Open */
+     public static final int A_STANDOUT   = ChType.A_STANDOUT; /* X/Open */
 
-     public static final int A_DIM        = A_NORMAL;
-     public static final int A_INVIS      = A_NORMAL;
-     public static final int A_PROTECT    = A_NORMAL;
+     public static final int A_DIM        = ChType.A_DIM;
+     public static final int A_INVIS      = ChType.A_INVIS;
+     public static final int A_PROTECT    = ChType.A_PROTECT;
 
-     public static final int A_HORIZONTAL = A_NORMAL;
-     public static final int A_LOW        = A_NORMAL;
-     public static final int A_TOP        = A_NORMAL;
-     public static final int A_VERTICAL   = A_NORMAL;
+     public static final int A_HORIZONTAL = ChType.A_HORIZONTAL;
+     public static final int A_LOW        = ChType.A_LOW;
+     public static final int A_TOP        = ChType.A_TOP;
+     public static final int A_VERTICAL   = ChType.A_VERTICAL;
 
      /* VT100-compatible symbols -- box chars */
      public static final int ACS_ULCORNER = PDC_ACS('l'); // ┏
@@ -258,7 +234,7 @@ public class Curses {
     }
 
     public static int beep() {
-        return curses4j_beep();
+        return SCREEN.curses4j_beep();
     }
 
     public static int bkgd(int ch) {
@@ -270,7 +246,7 @@ public class Curses {
     }
 
     public static boolean can_change_color() {
-        return curses4j_can_change_color() == TRUE;
+        return SCREEN.curses4j_can_change_color() == TRUE;
     }
 
     public static int clear() {
@@ -278,27 +254,34 @@ public class Curses {
     }
 
     public static int COLOR_PAIR(int n) {
-        return curses4j_color_pair(n);
+        return ChType.colorPair(n);
     }
 
     public static int COLOR_PAIRS() {
-        return curses4j_color_pairs();
+        return SCREEN.curses4j_color_pairs();
     }
 
     public static int COLORS() {
-        return curses4j_colors();
+        return SCREEN.curses4j_colors();
     }
 
     public static int def_shell_mode() {
-        return curses4j_def_shell_mode();
+        return SCREEN.curses4j_def_shell_mode();
     }
 
+    /**
+     * Leaves curses mode, turning off bracketed paste first if it is on.
+     */
     public static int endwin() {
-        return curses4j_endwin();
+        if (bracketedPaste) {
+            SCREEN.curses4j_bracketed_paste(FALSE);
+            bracketedPaste = false;
+        }
+        return SCREEN.curses4j_endwin();
     }
 
     public static int flash() {
-        return curses4j_flash();
+        return SCREEN.curses4j_flash();
     }
 
     public static int getch() {
@@ -322,22 +305,22 @@ public class Curses {
     }
 
     public static String unctrl(int c) {
-        return curses4j_unctrl(c);
+        return SCREEN.curses4j_unctrl(c);
     }
 
     public static boolean has_colors() {
-        return curses4j_has_colors() == TRUE;
+        return SCREEN.curses4j_has_colors() == TRUE;
     }
 
     public static int init_color(short color, short red, short green, short blue) {
-        return curses4j_init_color(color, red, green, blue);
+        return SCREEN.curses4j_init_color(color, red, green, blue);
     }
 
     public static int init_pair(int pair, short fg, short bg) {
         if (pair > Short.MAX_VALUE) {
             throw new RuntimeException("pair must be smaller than: " + Short.MAX_VALUE);
         } else {
-            return curses4j_init_pair((short) pair, fg, bg);
+            return SCREEN.curses4j_init_pair((short) pair, fg, bg);
         }
     }
 
@@ -350,7 +333,7 @@ public class Curses {
     }
 
     public static int napms(int delay) {
-        return curses4j_napms(delay);
+        return SCREEN.curses4j_napms(delay);
     }
 
     public static Window newwin(int nlines, int ncols, int begy, int begx) {
@@ -358,15 +341,88 @@ public class Curses {
     }
 
     public static int noecho() {
-        return curses4j_noecho();
+        return SCREEN.curses4j_noecho();
+    }
+
+    public static int cbreak() {
+        return SCREEN.curses4j_cbreak();
+    }
+
+    public static int nocbreak() {
+        return SCREEN.curses4j_nocbreak();
+    }
+
+    public static int raw() {
+        return SCREEN.curses4j_raw();
+    }
+
+    public static int noraw() {
+        return SCREEN.curses4j_noraw();
+    }
+
+    /**
+     * Like <code>cbreak</code>, but <code>getch</code> waits at most
+     * <code>tenths</code> tenths of a second (1 to 255) for a key.
+     */
+    public static int halfdelay(int tenths) {
+        return SCREEN.curses4j_halfdelay(tenths);
+    }
+
+    /**
+     * Sets the time to wait for the rest of an escape sequence after an
+     * <code>ESC</code> key. Only supported by ncurses, returns
+     * <code>ERR</code> elsewhere.
+     */
+    public static int set_escdelay(int ms) {
+        return SCREEN.curses4j_set_escdelay(ms);
+    }
+
+    public static int notimeout(boolean bf) {
+        return stdscr.notimeout(bf);
+    }
+
+    /**
+     * Selects the mouse events reported as <code>KEY_MOUSE</code>, see the
+     * masks in {@link MouseEvent}.
+     * 
+     * @return the supported subset of <code>mask</code>, 0 if the mouse is
+     *         not supported
+     */
+    public static long mousemask(long mask) {
+        return SCREEN.curses4j_mousemask(mask);
+    }
+
+    public static int mouseinterval(int interval) {
+        return SCREEN.curses4j_mouseinterval(interval);
+    }
+
+    /**
+     * Reads the mouse event behind the last <code>KEY_MOUSE</code> into
+     * <code>event</code>.
+     */
+    public static int getmouse(MouseEvent event) {
+        long bstate = SCREEN.curses4j_getmouse(event.fields);
+        if (bstate < 0) {
+            return ERR;
+        }
+        event.bstate = bstate;
+        return OK;
+    }
+
+    public static int ungetmouse(MouseEvent event) {
+        return SCREEN.curses4j_ungetmouse(event.id(), event.x(), event.y(), event.z(), event.bstate());
+    }
+
+    public static boolean mouse_trafo(int[] yx, boolean toScreen) {
+        return stdscr.mouse_trafo(yx, toScreen);
     }
 
     public static int PAIR_NUMBER(int n) {
-        return curses4j_pair_number(n);
+        return ChType.pairNumber(n);
     }
 
     public static int PDC_ACS(int w) {
-        return curses4j_pdc_acs(w);
+        return ChType.acs(w);
     }
 
     public static int printw(String str, Object... args) {
@@ -381,6 +437,14 @@ public class Curses {
         return stdscr.scrollok(bf);
     }
 
+    public static int idlok(boolean bf) {
+        return stdscr.idlok(bf);
+    }
+
+    public static int idcok(boolean bf) {
+        return stdscr.idcok(bf);
+    }
+
     public static int getmaxy() {
         return stdscr.getmaxy();
     }
@@ -389,10 +453,26 @@ public class Curses {
         return stdscr.getmaxx();
     }
 
+    public static int getbegy() {
+        return stdscr.getbegy();
+    }
+
+    public static int getbegx() {
+        return stdscr.getbegx();
+    }
+
     public static int mvaddstr(int y, int x, String str) {
         return stdscr.mvaddstr(y, x, str);
     }
 
+    public static int addnstr(char[] str, int off, int len) {
+        return stdscr.addnstr(str, off, len);
+    }
+
+    public static int mvaddnstr(int y, int x, char[] str, int off, int len) {
+        return stdscr.mvaddnstr(y, x, str, off, len);
+    }
+
     public static int mvaddch(int y, int x, char ch) {
         return stdscr.mvaddch(y, x, ch);
     }
@@ -410,7 +490,7 @@ public class Curses {
     }
 
     public static int start_color() {
-        return curses4j_start_color();
+        return SCREEN.curses4j_start_color();
     }
 
     public static Window subwin(int nlines, int ncols, int begy, int begx) {
@@ -421,16 +501,32 @@ public class Curses {
         return stdscr.touchwin();
     }
 
+    public static int touchline(int start, int count) {
+        return stdscr.touchline(start, count);
+    }
+
+    public static int untouchwin() {
+        return stdscr.untouchwin();
+    }
+
+    public static boolean is_linetouched(int line) {
+        return stdscr.is_linetouched(line);
+    }
+
+    public static boolean is_wintouched() {
+        return stdscr.is_wintouched();
+    }
+
     public static int typeahead(int fields) {
-        return curses4j_typeahead(fields);
+        return SCREEN.curses4j_typeahead(fields);
     }
 
     public static int LINES() {
-        return curses4j_lines();
+        return SCREEN.curses4j_lines();
     }
 
     public static int COLS() {
-        return curses4j_cols();
+        return SCREEN.curses4j_cols();
     }
 
     public static int insch(char ch) {
@@ -446,7 +542,7 @@ public class Curses {
     }
 
     public static boolean create_console() {
-        return curses4j_create_console() == TRUE ? true : false;
+        return SCREEN.curses4j_create_console() == TRUE ? true : false;
     }
 
     public static int insertln() {
@@ -477,12 +573,16 @@ public class Curses {
         return stdscr.nodelay(bf);
     }
 
+    public static int timeout(int delay) {
+        return stdscr.timeout(delay);
+    }
+
     public static int unget_wch(int ch) {
-        return curses4j_unget_wch(ch);
+        return SCREEN.curses4j_unget_wch(ch);
     }
 
     public static int echo() {
-        return curses4j_echo();
+        return SCREEN.curses4j_echo();
     }
 
     public static int keypad(boolean bf) {
@@ -490,19 +590,35 @@ public class Curses {
     }
 
     public static int flushinp() {
-        return curses4j_flushinp();
+        return SCREEN.curses4j_flushinp();
+    }
+
+    /**
+     * Asks the terminal to surround pasted text with markers, which
+     * {@link PasteDecoder} recognizes. The request is sent with the next
+     * screen update. {@link #endwin()} turns the markers off, so the shell
+     * never receives them; enable them again after returning from it. Only
+     * supported with ncurses.
+     */
+    public static int setBracketedPaste(boolean bf) {
+        int ret = SCREEN.curses4j_bracketed_paste(bf ? TRUE : FALSE);
+        if (ret == OK) {
+            bracketedPaste = bf;
+        }
+        return ret;
     }
 
     public static boolean is_termresized() {
-        return curses4j_is_termresized() == TRUE;
+        return SCREEN.curses4j_is_termresized() == TRUE;
     }
 
     public static int resize_term(int nlines, int ncols) {
-        return curses4j_resize_term(nlines, ncols);
+        Window.resized();
+        return SCREEN.curses4j_resize_term(nlines, ncols);
     }
 
     public static boolean disable_resize() {
-        return curses4j_disable_resize() == TRUE;
+        return SCREEN.curses4j_disable_resize() == TRUE;
     }
 
     public static int delwin() {
@@ -518,27 +634,32 @@ public class Curses {
     }
 
     public static int overwrite(Window src_w, Window dst_w) {
-        return curses4j_overwrite(src_w.peer.peer, dst_w.peer.peer);
+        src_w.sync();
+        dst_w.sync();
+        return SCREEN.curses4j_overwrite(src_w.peer.peer, dst_w.peer.peer);
     }
 
     public static int overlay(Window src_w, Window dst_w) {
-        return curses4j_overlay(src_w.peer.peer, dst_w.peer.peer);
+        src_w.sync();
+        dst_w.sync();
+        return SCREEN.curses4j_overlay(src_w.peer.peer, dst_w.peer.peer);
     }
 
     public static int copywin(Window src_w, Window dst_w, int src_tr, int src_tc, int dst_tr, int dst_tc, int dst_br,
             int dst_bc, int _overlay) {
-        return curses4j_copywin(src_w.peer.peer, dst_w.peer.peer, src_tr, src_tc, dst_tr, dst_tc, dst_br, dst_bc,
+        src_w.sync();
+        dst_w.sync();
+        return SCREEN.curses4j_copywin(src_w.peer.peer, dst_w.peer.peer, src_tr, src_tc, dst_tr, dst_tc, dst_br, dst_bc,
                 _overlay);
     }
 
     public static Window dupwin(Window win) {
-        long peer = curses4j_dupwin(win.peer.peer);
+        win.sync();
+        long peer = SCREEN.curses4j_dupwin(win.peer.peer);
         if (peer <= ERR) {
             return null;
         }
-        Window window = new Window();
-        window.peer.peer = peer;
-        return window;
+        return win.derived(peer);
     }
 
     public static Window derwin(int nlines, int ncols, int begy, int begx) {
@@ -562,20 +683,89 @@ public class Curses {
     }
 
     public static Window newpad(int nlines, int ncols) {
-        long peer = curses4j_newpad(nlines, ncols);
-        if (peer <= ERR) {
-            return null;
-        }
-        Window window = new Window();
-        window.peer.peer = peer;
-        return window;
+        return Window.newpad(nlines, ncols);
     }
 
     public static int prefresh(int py, int px, int sy1, int sx1, int sy2, int sx2) {
         return stdscr.prefresh(py, px, sy1, sx1, sy2, sx2);
     }
 
+    public static int noutrefresh() {
+        return stdscr.noutrefresh();
+    }
+
+    /**
+     * Sends everything copied to the virtual screen by
+     * <code>noutrefresh</code> and <code>pnoutrefresh</code> to the terminal
+     * in a single update.
+     */
+    public static int doupdate() {
+        Object event = Jfr.refresh();
+        long start = RenderMetrics.start();
+        int ret = SCREEN.curses4j_doupdate();
+        RenderMetrics.end(RenderMetrics.DOUPDATE, start);
+        Jfr.refresh(event, "doupdate", 0);
+        return ret;
+    }
+
     public static Window subpad(int nlines, int ncols, int begy, int begx) {
         return stdscr.subpad(nlines, ncols, begy, begx);
     }
+
+    /**
+     * Loads the native library if needed and returns its location.
+     */
+    public static String getLibraryPath() {
+        NativeLibrary.load();
+        return NativeLibrary.path;
+    }
+
+    /**
+     * @return nanoseconds spent locating, verifying and loading the native
+     *         library
+     */
+    public static long getLibraryLoadTime() {
+        NativeLibrary.load();
+        return NativeLibrary.loadTime;
+    }
+
+    static final ReentrantLock LOCK = new ReentrantLock();
+
+    private static boolean bracketedPaste;
+
+    /**
+     * Returns the lock that serializes curses calls between threads.
+     *
+     * curses is not thread safe. A single threaded program can ignore the
+     * lock, but while an {@link InputThread} or a {@link RenderScheduler}
+     * runs, every curses call of any other thread, drawing included, must be
+     * made holding it. Both take it for each of their own calls.
+     */
+    public static Lock lock() {
+        return LOCK;
+    }
+
+    public static int addchnstr(int[] cells, int off, int len) {
+        return stdscr.addchnstr(cells, off, len);
+    }
+
+    public static int addchnstr(IntBuffer cells) {
+        return stdscr.addchnstr(cells);
+    }
+
+    public static int mvaddchnstr(int y, int x, int[] cells, int off, int len) {
+        return stdscr.mvaddchnstr(y, x, cells, off, len);
+    }
+
+    public static int mvaddchnstr(int y, int x, IntBuffer cells) {
+        return stdscr.mvaddchnstr(y, x, cells);
+    }
+
+    public static int inch() {
+        return stdscr.inch();
+    }
+
+    public static int mvinch(int y, int x) {
+        return stdscr.mvinch(y, x);
+    }
 }
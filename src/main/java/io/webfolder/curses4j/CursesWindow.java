@@ -1,116 +1,157 @@
 package io.webfolder.curses4j;
 
 import static java.lang.System.getProperty;
-import static java.lang.System.load;
-import static java.nio.file.Files.copy;
-import static java.nio.file.Files.createTempFile;
-import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
-import static java.util.Locale.ENGLISH;
-
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Path;
 
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * The native calls of curses4j, the seam between the Java api and a backend.
+ *
+ * Calls bound to a window take its pointer as <code>peer</code>, the others
+ * go through {@link #SCREEN}. The backend is chosen once with the
+ * <code>curses4j.backend</code> system property:
+ *
+ * <ul>
+ * <li><code>jni</code> - the default, this class bound to the curses4j
+ * library by <code>JNI_OnLoad</code>, or {@link ProfilingCursesWindow}
+ * while the {@link Profiler} is enabled</li>
+ * <li><code>ffm</code> - <code>io.webfolder.curses4j.FfmCursesWindow</code>,
+ * loaded by name from a build that includes it, which must override every
+ * native method</li>
+ * </ul>
+ */
 class CursesWindow {
 
-    private static final String OS = getProperty("os.name").toLowerCase(ENGLISH);
+    private static final Class<?> BACKEND = backend();
 
-    private static final boolean WINDOWS = OS.startsWith("windows");
+    /* backend of the calls that are not bound to a window */
+    static final CursesWindow SCREEN = create();
 
     long peer;
 
-    static {
-        ClassLoader cl = CursesWindow.class.getClassLoader();
-        Path libFile;
-        String library = WINDOWS ? "META-INF/curses4j.dll" : "META-INF/libcurses4j.so";
-        try (InputStream is = cl.getResourceAsStream(library)) {
-            libFile = createTempFile("curses4j", WINDOWS ? ".dll" : ".so");
-            copy(is, libFile, REPLACE_EXISTING);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    private static Class<?> backend() {
+        String name = getProperty("curses4j.backend", "jni");
+        if ("jni".equals(name)) {
+            NativeLibrary.load();
+            return Profiler.isEnabled() ? ProfilingCursesWindow.class : CursesWindow.class;
+        }
+        if ("ffm".equals(name)) {
+            try {
+                return Class.forName("io.webfolder.curses4j.FfmCursesWindow", false, CursesWindow.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("the ffm backend is not part of this build", e);
+            }
         }
-        libFile.toFile().deleteOnExit();
-        load(libFile.toAbsolutePath().toString());
+        throw new IllegalArgumentException("curses4j.backend must be jni or ffm: " + name);
     }
 
-    native static int curses4j_create_console();
+    static CursesWindow create() {
+        if (BACKEND == CursesWindow.class) {
+            return new CursesWindow();
+        }
+        if (BACKEND == ProfilingCursesWindow.class) {
+            return new ProfilingCursesWindow();
+        }
+        try {
+            return (CursesWindow) BACKEND.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("unable to create the " + BACKEND.getName() + " backend", e);
+        }
+    }
 
-    native static int curses4j_beep();
+    native int curses4j_create_console();
 
-    native static int curses4j_can_change_color();
+    native int curses4j_beep();
 
-    native static int curses4j_color_pair(int n);
+    native int curses4j_can_change_color();
 
-    native static int curses4j_color_pairs();
+    native int curses4j_color_pairs();
 
-    native static int curses4j_colors();
+    native int curses4j_colors();
 
-    native static int curses4j_def_shell_mode();
+    native int curses4j_def_shell_mode();
 
-    native static int curses4j_endwin();
+    native int curses4j_endwin();
 
-    native static int curses4j_flash();
+    native int curses4j_flash();
 
-    native static int curses4j_has_colors();
+    native int curses4j_has_colors();
 
-    native static int curses4j_init_color(short color, short red, short green, short blue);
+    native int curses4j_init_color(short color, short red, short green, short blue);
 
-    native static int curses4j_init_pair(short pair, short fg, short bg);
+    native int curses4j_init_pair(short pair, short fg, short bg);
 
-    native static int curses4j_napms(int delay);
+    native int curses4j_napms(int delay);
 
-    native static long curses4j_newwin(int nlines, int ncols, int begy, int begx);
+    native int curses4j_wait_input(int millis);
 
-    native static int curses4j_noecho();
+    native long curses4j_newwin(int nlines, int ncols, int begy, int begx);
 
-    native static int curses4j_echo();
+    native int curses4j_noecho();
 
-    native static int curses4j_pair_number(int n);
+    native int curses4j_echo();
 
-    native static int curses4j_pdc_acs(int w);
+    native int curses4j_cbreak();
 
-    native static int curses4j_start_color();
+    native int curses4j_nocbreak();
 
-    native static int curses4j_typeahead(int fields);
+    native int curses4j_raw();
 
-    native static int curses4j_lines();
+    native int curses4j_noraw();
 
-    native static int curses4j_cols();
+    native int curses4j_halfdelay(int tenths);
 
-    native static String curses4j_unctrl(int c);
+    native int curses4j_set_escdelay(int ms);
 
-    native static int curses4j_unget_wch(int ch);
+    native long curses4j_mousemask(long mask);
 
-    native static int curses4j_flushinp();
+    native int curses4j_mouseinterval(int interval);
 
-    native static int curses4j_is_termresized();
+    native long curses4j_getmouse(int[] event);
 
-    native static int curses4j_resize_term(int nlines, int ncols);
+    native int curses4j_ungetmouse(int id, int x, int y, int z, long bstate);
 
-    native static int curses4j_disable_resize();
+    native int curses4j_mouse_masks(long[] masks);
 
-    native static int curses4j_overwrite(long src_w, long dst_w);
+    native int curses4j_bracketed_paste(int bf);
 
-    native static int curses4j_overlay(long src_w, long dst_w);
+    native int curses4j_start_color();
 
-    native static int curses4j_copywin(long src_w, long dst_w, int src_tr, int src_tc, int dst_tr, int dst_tc,
-            int dst_br, int dst_bc, int _overlay);
+    native int curses4j_typeahead(int fields);
 
-    native static long curses4j_dupwin(long win);
+    native int curses4j_lines();
 
-    native static long curses4j_newpad(int nlines, int ncols);
+    native int curses4j_cols();
 
-    native int curses4j_winsertln(long peer);
+    native String curses4j_unctrl(int c);
 
-    native long curses4j_derwin(long peer, int nlines, int ncols, int begy, int begx);
+    native int curses4j_unget_wch(int ch);
+
+    native int curses4j_flushinp();
 
-    native int curses4j_getmaxx(long peer);
+    native int curses4j_is_termresized();
 
-    native int curses4j_getmaxy(long peer);
+    native int curses4j_resize_term(int nlines, int ncols);
 
-    native int curses4j_getparx(long peer);
+    native int curses4j_disable_resize();
 
-    native int curses4j_getpary(long peer);
+    native int curses4j_overwrite(long src_w, long dst_w);
+
+    native int curses4j_overlay(long src_w, long dst_w);
+
+    native int curses4j_copywin(long src_w, long dst_w, int src_tr, int src_tc, int dst_tr, int dst_tc,
+            int dst_br, int dst_bc, int _overlay);
+
+    native long curses4j_dupwin(long win);
+
+    native long curses4j_newpad(int nlines, int ncols);
+
+    native int curses4j_doupdate();
+
+    native int curses4j_winsertln(long peer);
+
+    native long curses4j_derwin(long peer, int nlines, int ncols, int begy, int begx);
 
     native long curses4j_initscr();
 
@@ -122,18 +163,36 @@ class CursesWindow {
 
     native int curses4j_nodelay(long peer, int bf);
 
+    native int curses4j_wtimeout(long peer, int delay);
+
+    native int curses4j_notimeout(long peer, int bf);
+
+    native int curses4j_wenclose(long peer, int y, int x);
+
+    native int curses4j_wmouse_trafo(long peer, int[] yx, int toScreen);
+
     native int curses4j_scrollok(long peer, int bf);
 
+    native int curses4j_idlok(long peer, int bf);
+
+    native int curses4j_idcok(long peer, int bf);
+
     native long curses4j_subwin(long peer, int nlines, int ncols, int begy, int begx);
 
     native int curses4j_touchwin(long peer);
 
+    native int curses4j_wtouchln(long peer, int y, int n, int changed);
+
+    native int curses4j_is_linetouched(long peer, int line);
+
+    native int curses4j_is_wintouched(long peer);
+
+    native int curses4j_untouchwin(long peer);
+
     native int curses4j_waddch(long peer, int ch);
 
     native int curses4j_waddstr(long peer, String str);
 
-    native int curses4j_wattr_on(long peer, int attrs);
-
     native int curses4j_wattroff(long peer, int attrs);
 
     native int curses4j_wattron(long peer, int attrs);
@@ -146,20 +205,16 @@ class CursesWindow {
 
     native int curses4j_wgetch(long peer);
 
-    native String curses4j_wgetnstr(long peer, int n);
+    native int curses4j_wgetkeys(long peer, int[] keys, int off, int len, int delay);
 
-    native int curses4j_wmove(long peer, int y, int x);
+    native String curses4j_wgetnstr(long peer, int n, int[] result);
 
-    native int curses4j_wprintw(long peer, String str);
+    native int curses4j_wmove(long peer, int y, int x);
 
     native int curses4j_wrefresh(long peer);
 
     native int curses4j_mvwaddch(long peer, int y, int x, int ch);
 
-    native int curses4j_getcury(long peer);
-
-    native int curses4j_getcurx(long peer);
-
     native int curses4j_winsch(long peer, int ch);
 
     native int curses4j_winsstr(long peer, String str);
@@ -184,8 +239,6 @@ class CursesWindow {
 
     native int curses4j_mvwin(long peer, int y, int x);
 
-    native int curses4j_mvwprintw(long peer, int y, int x, String str);
-
     native int curses4j_scroll(long peer);
 
     native int curses4j_wscrl(long peer, int n);
@@ -195,4 +248,30 @@ class CursesWindow {
     native int curses4j_prefresh(long peer, int py, int px, int sy1, int sx1, int sy2, int sx2);
 
     native long curses4j_subpad(long peer, int nlines, int ncols, int begy, int begx);
+
+    native int curses4j_exec_batch(long peer, ByteBuffer ops, int len);
+
+    native int curses4j_mvwaddchnstr(long peer, int y, int x, int[] cells, int off, int len);
+
+    native int curses4j_mvwaddchnstr_direct(long peer, int y, int x, Buffer cells, int off, int len);
+
+    native int curses4j_winch(long peer);
+
+    native int curses4j_mvwinch(long peer, int y, int x);
+
+    native int curses4j_mvwinchnstr(long peer, int y, int x, int[] cells, int off, int len);
+
+    native int curses4j_mvwinchnstr_direct(long peer, int y, int x, Buffer cells, int off, int len);
+
+    native int curses4j_mvwaddnwstr(long peer, int y, int x, char[] str, int off, int len);
+
+    native void curses4j_getgeometry(long peer, int[] geometry);
+
+    native long curses4j_getyx(long peer);
+
+    native int curses4j_getattrs(long peer);
+
+    native int curses4j_wnoutrefresh(long peer);
+
+    native int curses4j_pnoutrefresh(long peer, int py, int px, int sy1, int sx1, int sy2, int sx2);
 }
@@ -0,0 +1,157 @@
+package io.webfolder.curses4j;
+
+import static io.webfolder.curses4j.Curses.ERR;
+import static io.webfolder.curses4j.Curses.OK;
+
+/**
+ * Composes the windows refreshed during a frame into one physical update.
+ *
+ * While a frame is active, {@link Window#refresh()} and
+ * {@link Window#prefresh(int, int, int, int, int, int)} only copy the window
+ * to the virtual screen, with <code>wnoutrefresh</code> and
+ * <code>pnoutrefresh</code>, at the time they are called. Windows and pads
+ * therefore overlap in the order they were refreshed. {@link #flush()} then
+ * writes the terminal once with <code>doupdate</code>.
+ *
+ * The active frame is global: while it is active the refreshes of every
+ * thread go into it. Like curses itself, a frame started with
+ * {@link #begin()} must only be used by one thread; refreshing from several
+ * threads needs a {@link RenderScheduler}.
+ *
+ * <pre>
+ * try (Frame frame = Frame.begin()) {
+ *     left.refresh();
+ *     right.refresh();
+ * }
+ * </pre>
+ */
+public final class Frame implements AutoCloseable {
+
+    static volatile Frame active;
+
+    RenderScheduler scheduler;
+
+    private int copies;
+
+    private int cells;
+
+    private boolean pending;
+
+    private int ret = OK;
+
+    Frame() {
+    }
+
+    /**
+     * Starts a frame. Frames do not nest.
+     */
+    public static Frame begin() {
+        return activate(new Frame());
+    }
+
+    static Frame activate(Frame frame) {
+        if (active != null) {
+            throw new IllegalStateException("a frame is already active");
+        }
+        active = frame;
+        return frame;
+    }
+
+    /**
+     * Copies the window to the virtual screen, over the windows copied before
+     * it. The terminal is updated by the next flush.
+     */
+    public void add(Window window) {
+        copy(window);
+    }
+
+    int refresh(Window window) {
+        RenderScheduler scheduler = this.scheduler;
+        if (scheduler == null) {
+            return copy(window);
+        } else {
+            return scheduler.refresh(window);
+        }
+    }
+
+    int prefresh(Window pad, int py, int px, int sy1, int sx1, int sy2, int sx2) {
+        RenderScheduler scheduler = this.scheduler;
+        if (scheduler == null) {
+            return copy(pad, py, px, sy1, sx1, sy2, sx2);
+        } else {
+            return scheduler.prefresh(pad, py, px, sy1, sx1, sy2, sx2);
+        }
+    }
+
+    int copy(Window window) {
+        return copied(window.noutrefresh(), window.getmaxy() * window.getmaxx());
+    }
+
+    int copy(Window pad, int py, int px, int sy1, int sx1, int sy2, int sx2) {
+        int ret = pad.pnoutrefresh(py, px, sy1, sx1, sy2, sx2);
+        return copied(ret, Math.max(0, sy2 - sy1 + 1) * Math.max(0, sx2 - sx1 + 1));
+    }
+
+    private int copied(int ret, int cells) {
+        copies++;
+        this.cells += cells;
+        pending = true;
+        if (ret == ERR) {
+            this.ret = ERR;
+        }
+        return ret;
+    }
+
+    boolean isPending() {
+        return pending;
+    }
+
+    /**
+     * @return number of windows and pads copied since the last flush
+     */
+    public int pending() {
+        return copies;
+    }
+
+    /**
+     * Updates the terminal once with everything copied since the last flush.
+     * Does nothing if nothing was refreshed since then.
+     *
+     * @return <code>ERR</code> if any of the copies or the update failed
+     */
+    public int flush() {
+        if (!pending) {
+            return OK;
+        }
+        Object event = Jfr.flush();
+        int cells = this.cells;
+        int ret = this.ret;
+        this.copies = 0;
+        this.cells = 0;
+        this.pending = false;
+        this.ret = OK;
+        if (Curses.doupdate() == ERR) {
+            ret = ERR;
+        }
+        Jfr.flush(event, "frame", cells);
+        return ret;
+    }
+
+    /**
+     * Flushes the frame and ends it.
+     */
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            deactivate();
+        }
+    }
+
+    void deactivate() {
+        if (active == this) {
+            active = null;
+        }
+    }
+}
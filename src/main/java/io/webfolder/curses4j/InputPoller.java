@@ -0,0 +1,69 @@
+package io.webfolder.curses4j;
+
+import static io.webfolder.curses4j.Curses.ERR;
+import static java.lang.System.nanoTime;
+
+/**
+ * Reads keys with millisecond deadlines.
+ *
+ * Each poll sets the window's <code>wtimeout</code> to the time left and
+ * waits in a single <code>wgetch</code>, so a game loop can wait up to one
+ * frame for a key without a <code>napms</code> loop. The window skips
+ * <code>wtimeout</code> calls that would not change the delay, so polling
+ * with a fixed timeout costs a single native call. Polling never allocates.
+ *
+ * <pre>
+ * InputPoller input = new InputPoller(stdscr);
+ * long deadline = System.nanoTime() + frameNanos;
+ * int key;
+ * while ((key = input.pollUntil(deadline)) != ERR) {
+ *     handle(key);
+ * }
+ * </pre>
+ */
+public final class InputPoller {
+
+    private static final long MILLI = 1_000_000L;
+
+    private final Window window;
+
+    public InputPoller(Window window) {
+        this.window = window;
+    }
+
+    /**
+     * @return a key if one is already waiting, else <code>ERR</code>
+     */
+    public int pollNow() {
+        return poll(0);
+    }
+
+    /**
+     * Waits up to <code>timeoutMillis</code> for a key, or forever if
+     * negative.
+     *
+     * @return the key, or <code>ERR</code> on timeout
+     */
+    public int poll(int timeoutMillis) {
+        window.timeout(timeoutMillis);
+        return window.getch();
+    }
+
+    /**
+     * Waits for a key until the {@link System#nanoTime()} deadline.
+     *
+     * @return the key, or <code>ERR</code> once the deadline has passed
+     */
+    public int pollUntil(long deadlineNanos) {
+        while (true) {
+            long left = deadlineNanos - nanoTime();
+            if (left <= 0) {
+                return pollNow();
+            }
+            int key = poll((int) Math.min((left + MILLI - 1) / MILLI, Integer.MAX_VALUE));
+            if (key != ERR) {
+                return key;
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package io.webfolder.curses4j;
+
+import static io.webfolder.curses4j.Curses.ERR;
+import static io.webfolder.curses4j.Curses.TRUE;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reads the keyboard on a dedicated thread.
+ *
+ * The thread waits for keyboard input outside of curses and without any
+ * lock. When input arrives it takes {@link Curses#lock()} and drains the
+ * waiting keys without blocking, see {@link Window#readKeys(int[])}. Keys
+ * that curses generates itself, such as <code>KEY_RESIZE</code>, do not wake
+ * the wait, so it also drains at least every <code>waitMillis</code>. It
+ * offers every key to the registered
+ * {@link KeyListener}s and then to a bounded lock-free queue of key codes.
+ * Application threads take keys from the queue with {@link #poll()} or
+ * {@link #take(long, TimeUnit)} instead of spinning on <code>getch</code>.
+ *
+ * curses is not thread safe, and reading a key can refresh, resize and write
+ * to the terminal. While the thread runs, every curses call of other threads
+ * must therefore hold {@link Curses#lock()}. The lock is only held for the
+ * short non-blocking read, never while waiting for input.
+ *
+ * Keys are read through a private 1x1 window with <code>keypad</code>
+ * enabled that is never drawn, so reading never refreshes the windows the
+ * application is drawing. Input should not be echoed, see
+ * {@link Curses#noecho()}.
+ *
+ * <pre>
+ * try (InputThread input = InputThread.start()) {
+ *     int key = input.take(16, MILLISECONDS);
+ *     ...
+ * }
+ * </pre>
+ */
+public final class InputThread implements AutoCloseable {
+
+    /**
+     * Receives keys on the input thread.
+     */
+    public interface KeyListener {
+
+        /**
+         * @return <code>true</code> if the key was handled and must not be
+         *         queued
+         */
+        boolean onKey(int key);
+    }
+
+    private static final KeyListener[] NO_LISTENERS = {};
+
+    private final Window window;
+
+    private final KeyQueue queue;
+
+    private final ReentrantLock lock = Curses.LOCK;
+
+    private final int waitMillis;
+
+    private final int[] keys = new int[64];
+
+    private final Thread thread;
+
+    private volatile KeyListener[] listeners = NO_LISTENERS;
+
+    private volatile boolean running = true;
+
+    private InputThread(Window window, int capacity, int waitMillis) {
+        this.window = window;
+        this.queue = new KeyQueue(capacity);
+        this.waitMillis = waitMillis;
+        this.thread = new Thread(this::run, "curses4j-input");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts reading with a queue of 256 keys, draining at least every 100
+     * milliseconds while no input arrives.
+     */
+    public static InputThread start() {
+        return start(256, 100);
+    }
+
+    /**
+     * @param waitMillis longest wait for input before draining anyway, which
+     *                   bounds how late <code>KEY_RESIZE</code> is seen and
+     *                   how long {@link #close()} takes
+     */
+    public static InputThread start(int capacity, int waitMillis) {
+        if (waitMillis <= 0) {
+            throw new IllegalArgumentException("waitMillis must be positive");
+        }
+        ReentrantLock lock = Curses.LOCK;
+        Window window;
+        lock.lock();
+        try {
+            window = Window.newwin(1, 1, 0, 0);
+            if (window == null) {
+                throw new IllegalStateException("unable to create input window");
+            }
+            window.keypad(true);
+            window.timeout(0);
+            window.untouchwin();
+        } finally {
+            lock.unlock();
+        }
+        InputThread input = new InputThread(window, capacity, waitMillis);
+        input.thread.start();
+        return input;
+    }
+
+    public synchronized void addListener(KeyListener listener) {
+        KeyListener[] next = Arrays.copyOf(listeners, listeners.length + 1);
+        next[listeners.length] = listener;
+        listeners = next;
+    }
+
+    public synchronized void removeListener(KeyListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                KeyListener[] next = new KeyListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, next, 0, i);
+                System.arraycopy(listeners, i + 1, next, i, next.length - i);
+                listeners = next;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the next queued key, or <code>ERR</code> if there is none
+     */
+    public int poll() {
+        return queue.poll();
+    }
+
+    /**
+     * Waits up to <code>timeout</code> for a key.
+     *
+     * @return the next queued key, or <code>ERR</code> on timeout
+     */
+    public int take(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.take(timeout, unit);
+    }
+
+    /**
+     * Waits for a key.
+     *
+     * @return the next queued key, or <code>ERR</code> if the thread was
+     *         stopped
+     */
+    public int take() throws InterruptedException {
+        int key;
+        while ((key = queue.take(1, TimeUnit.SECONDS)) == ERR && running) {
+            // wait
+        }
+        return key;
+    }
+
+    /**
+     * @return number of queued keys
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * @return number of keys dropped because the queue was full
+     */
+    public long getDropped() {
+        return queue.dropped();
+    }
+
+    /**
+     * Stops the thread and deletes its window. Keys still queued can be
+     * polled afterwards.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        lock.lock();
+        try {
+            window.delwin();
+        } finally {
+            lock.unlock();
+        }
+        queue.wakeUp();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        int n = 0;
+        while (running) {
+            int ready = TRUE;
+            if (n < keys.length) {
+                // keys left in the buffers of curses only show up on the next drain
+                ready = CursesWindow.SCREEN.curses4j_wait_input(waitMillis);
+                if (ready == ERR) {
+                    // the input can not be waited on, fall back to polling
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(waitMillis));
+                }
+                if (!running) {
+                    break;
+                }
+            }
+            lock.lock();
+            try {
+                n = window.readKeys(keys);
+            } finally {
+                lock.unlock();
+            }
+            for (int i = 0; i < n; i++) {
+                if (!dispatch(keys[i])) {
+                    queue.offer(keys[i]);
+                }
+            }
+            if (n == 0 && ready == TRUE) {
+                // readable but no key yet, such as an incomplete escape sequence
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+    }
+
+    private boolean dispatch(int key) {
+        for (KeyListener listener : listeners) {
+            if (listener.onKey(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,84 @@
+package io.webfolder.curses4j;
+
+import static io.webfolder.curses4j.Curses.ERR;
+
+/**
+ * Records the curses4j Java Flight Recorder events.
+ *
+ * The event classes live in the <code>src/main/jfr</code> source set, which
+ * is only compiled on JDKs that have <code>jdk.jfr</code>, and are reached
+ * through a {@link Recorder} loaded by name. Without them, or on a JVM
+ * without JFR, every call is a no-op, so curses4j still builds and runs on
+ * Java 8 without JFR. While no recording has the events enabled,
+ * <code>start</code> returns <code>null</code> and nothing is allocated.
+ */
+final class Jfr {
+
+    /**
+     * Starts and commits the events, see <code>JfrRecorder</code>.
+     */
+    interface Recorder {
+
+        Object refresh();
+
+        void refresh(Object event, String function, long window);
+
+        Object inputWait();
+
+        void inputWait(Object event, String function, long window, int key);
+
+        Object flush();
+
+        void flush(Object event, String source, int count);
+    }
+
+    private static final Recorder RECORDER = recorder();
+
+    private Jfr() {
+    }
+
+    private static Recorder recorder() {
+        ClassLoader loader = Jfr.class.getClassLoader();
+        try {
+            Class.forName("jdk.jfr.Event", false, loader);
+            return (Recorder) Class.forName("io.webfolder.curses4j.JfrRecorder", true, loader)
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    static Object refresh() {
+        return RECORDER == null ? null : RECORDER.refresh();
+    }
+
+    static void refresh(Object event, String function, long window) {
+        if (event != null) {
+            RECORDER.refresh(event, function, window);
+        }
+    }
+
+    static Object inputWait() {
+        return RECORDER == null ? null : RECORDER.inputWait();
+    }
+
+    /**
+     * Commits the wait if it returned a key. Waits that timed out, such as the
+     * polls of an {@link InputThread}, are not recorded.
+     */
+    static void inputWait(Object event, String function, long window, int key) {
+        if (event != null && key != ERR) {
+            RECORDER.inputWait(event, function, window, key);
+        }
+    }
+
+    static Object flush() {
+        return RECORDER == null ? null : RECORDER.flush();
+    }
+
+    static void flush(Object event, String source, int count) {
+        if (event != null) {
+            RECORDER.flush(event, source, count);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package io.webfolder.curses4j;
+
+import static io.webfolder.curses4j.Curses.ERR;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded lock-free queue of key codes with a single producer.
+ *
+ * The producer publishes into a power of two ring of ints and never blocks;
+ * when the ring is full the key is dropped and counted. Any number of
+ * threads may consume. Consumers claim a key with a compare-and-set of the
+ * read index, and the lock is only taken by consumers waiting for a key and
+ * by the producer when one of them is waiting.
+ */
+final class KeyQueue {
+
+    private final int[] keys;
+
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private volatile long dropped;
+
+    KeyQueue(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        keys = new int[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Called by the producer thread only.
+     *
+     * @return <code>false</code> if the queue was full
+     */
+    boolean offer(int key) {
+        long t = tail.get();
+        if (t - head.get() >= keys.length) {
+            dropped++;
+            return false;
+        }
+        keys[(int) t & mask] = key;
+        tail.set(t + 1);
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the next key, or <code>ERR</code> if the queue is empty
+     */
+    int poll() {
+        while (true) {
+            long h = head.get();
+            if (h >= tail.get()) {
+                return ERR;
+            }
+            int key = keys[(int) h & mask];
+            if (head.compareAndSet(h, h + 1)) {
+                return key;
+            }
+        }
+    }
+
+    /**
+     * @return the next key, or <code>ERR</code> if none arrived within the
+     *         timeout
+     */
+    int take(long timeout, TimeUnit unit) throws InterruptedException {
+        int key = poll();
+        if (key != ERR || timeout <= 0) {
+            return key;
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        waiters.incrementAndGet();
+        try {
+            while ((key = poll()) == ERR && nanos > 0) {
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return key;
+        } finally {
+            waiters.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        return (int) Math.max(tail.get() - head.get(), 0);
+    }
+
+    long dropped() {
+        return dropped;
+    }
+
+    /**
+     * Wakes every waiting consumer, used when the producer stops.
+     */
+    void wakeUp() {
+        lock.lock();
+        try {
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package io.webfolder.curses4j;
+
+import static io.webfolder.curses4j.CursesWindow.SCREEN;
+
+/**
+ * Reusable mouse event, filled by {@link Curses#getmouse(MouseEvent)}.
+ *
+ * One instance is meant to be reused for every event, so decoding never
+ * allocates. The button masks differ between ncurses and PDCurses and are
+ * read from the native library once.
+ */
+public final class MouseEvent {
+
+    private static final long[] MASKS = masks();
+
+    public static final long BUTTON1_RELEASED       = MASKS[0];
+    public static final long BUTTON1_PRESSED        = MASKS[1];
+    public static final long BUTTON1_CLICKED        = MASKS[2];
+    public static final long BUTTON1_DOUBLE_CLICKED = MASKS[3];
+    public static final long BUTTON1_TRIPLE_CLICKED = MASKS[4];
+
+    public static final long BUTTON2_RELEASED       = MASKS[5];
+    public static final long BUTTON2_PRESSED        = MASKS[6];
+    public static final long BUTTON2_CLICKED        = MASKS[7];
+    public static final long BUTTON2_DOUBLE_CLICKED = MASKS[8];
+    public static final long BUTTON2_TRIPLE_CLICKED = MASKS[9];
+
+    public static final long BUTTON3_RELEASED       = MASKS[10];
+    public static final long BUTTON3_PRESSED        = MASKS[11];
+    public static final long BUTTON3_CLICKED        = MASKS[12];
+    public static final long BUTTON3_DOUBLE_CLICKED = MASKS[13];
+    public static final long BUTTON3_TRIPLE_CLICKED = MASKS[14];
+
+    public static final long BUTTON4_RELEASED       = MASKS[15];
+    public static final long BUTTON4_PRESSED        = MASKS[16];
+    public static final long BUTTON4_CLICKED        = MASKS[17];
+    public static final long BUTTON4_DOUBLE_CLICKED = MASKS[18];
+    public static final long BUTTON4_TRIPLE_CLICKED = MASKS[19];
+
+    /* 0 when the library supports only four buttons, mouse version 1 */
+    public static final long BUTTON5_RELEASED       = MASKS[20];
+    public static final long BUTTON5_PRESSED        = MASKS[21];
+    public static final long BUTTON5_CLICKED        = MASKS[22];
+    public static final long BUTTON5_DOUBLE_CLICKED = MASKS[23];
+    public static final long BUTTON5_TRIPLE_CLICKED = MASKS[24];
+
+    public static final long BUTTON_SHIFT           = MASKS[25];
+    public static final long BUTTON_CTRL            = MASKS[26];
+    public static final long BUTTON_ALT             = MASKS[27];
+
+    public static final long REPORT_MOUSE_POSITION  = MASKS[28];
+    public static final long ALL_MOUSE_EVENTS       = MASKS[29];
+
+    private static final int BUTTONS = 5;
+
+    private static final int STATES = 5;
+
+    /* id, x, y, z as filled by curses4j_getmouse */
+    final int[] fields = new int[4];
+
+    long bstate;
+
+    public MouseEvent() {
+    }
+
+    public MouseEvent(int id, int x, int y, int z, long bstate) {
+        set(id, x, y, z, bstate);
+    }
+
+    private static long[] masks() {
+        long[] masks = new long[30];
+        if (SCREEN.curses4j_mouse_masks(masks) != masks.length) {
+            throw new IllegalStateException("mouse masks do not match the native library");
+        }
+        return masks;
+    }
+
+    public MouseEvent set(int id, int x, int y, int z, long bstate) {
+        fields[0] = id;
+        fields[1] = x;
+        fields[2] = y;
+        fields[3] = z;
+        this.bstate = bstate;
+        return this;
+    }
+
+    /**
+     * @return id of the device that sent the event
+     */
+    public int id() {
+        return fields[0];
+    }
+
+    /**
+     * @return screen column of the event
+     */
+    public int x() {
+        return fields[1];
+    }
+
+    /**
+     * @return screen line of the event
+     */
+    public int y() {
+        return fields[2];
+    }
+
+    public int z() {
+        return fields[3];
+    }
+
+    /**
+     * @return button state bits, see the <code>BUTTON*</code> masks
+     */
+    public long bstate() {
+        return bstate;
+    }
+
+    /**
+     * @return <code>true</code> if any of the <code>mask</code> bits is set
+     */
+    public boolean is(long mask) {
+        return (bstate & mask) != 0;
+    }
+
+    /**
+     * @return number of the button that changed, from 1 to 5, or 0 for a
+     *         position report
+     */
+    public int button() {
+        for (int b = 0; b < BUTTONS; b++) {
+            for (int s = 0; s < STATES; s++) {
+                if ((bstate & MASKS[b * STATES + s]) != 0) {
+                    return b + 1;
+                }
+            }
+        }
+        return 0;
+    }
+
+    public boolean isShift() {
+        return is(BUTTON_SHIFT);
+    }
+
+    public boolean isCtrl() {
+        return is(BUTTON_CTRL);
+    }
+
+    public boolean isAlt() {
+        return is(BUTTON_ALT);
+    }
+
+    @Override
+    public String toString() {
+        return "MouseEvent [id=" + id() + ", x=" + x() + ", y=" + y() + ", z=" + z() + ", bstate=0x"
+                + Long.toHexString(bstate) + "]";
+    }
+}
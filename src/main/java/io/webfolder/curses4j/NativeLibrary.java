@@ -0,0 +1,228 @@
+package io.webfolder.curses4j;
+
+import static java.lang.System.getProperty;
+import static java.lang.System.nanoTime;
+import static java.nio.file.Files.copy;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.createDirectory;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.getOwner;
+import static java.nio.file.Files.getPosixFilePermissions;
+import static java.nio.file.Files.isDirectory;
+import static java.nio.file.Files.isRegularFile;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.size;
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.attribute.PosixFilePermissions.asFileAttribute;
+import static java.nio.file.attribute.PosixFilePermissions.fromString;
+import static java.util.Locale.ENGLISH;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Loads the curses4j native library.
+ *
+ * The library bundled in the jar is extracted once into a cache directory,
+ * keyed by the size and CRC-32 that the jar already records for it, and
+ * reused by later JVMs without reading it again. The following system
+ * properties change the defaults:
+ *
+ * <ul>
+ * <li><code>curses4j.library.path</code> - an already installed library to
+ * load instead of the bundled one</li>
+ * <li><code>curses4j.cache.dir</code> - the cache directory, defaults to
+ * <code>${java.io.tmpdir}/curses4j-${user.name}</code></li>
+ * </ul>
+ *
+ * On POSIX file systems the cache directory is created with owner-only
+ * permissions, and an existing one is only used if it is owned by the
+ * current user and not accessible by anyone else, so no other user can
+ * replace the cached library before it is loaded. The library is checked
+ * against the CRC-32 once when it is extracted; a cached copy is trusted
+ * on its size alone.
+ *
+ * When the jar has no bundled library, or it can not be extracted safely,
+ * <code>System.loadLibrary("curses4j")</code> is used.
+ */
+final class NativeLibrary {
+
+    private static final boolean WINDOWS = getProperty("os.name").toLowerCase(ENGLISH).startsWith("windows");
+
+    private static final String RESOURCE = WINDOWS ? "META-INF/curses4j.dll" : "META-INF/libcurses4j.so";
+
+    private static final String FILE_NAME = WINDOWS ? "curses4j.dll" : "libcurses4j.so";
+
+    private static final Set<PosixFilePermission> OWNER_ONLY = fromString("rwx------");
+
+    static String path;
+
+    static long loadTime;
+
+    /* owner of the files this process creates, see currentUser */
+    private static UserPrincipal user;
+
+    private NativeLibrary() {
+    }
+
+    static synchronized void load() {
+        if (path != null) {
+            return;
+        }
+        long start = nanoTime();
+        String library = getProperty("curses4j.library.path");
+        IOException failure = null;
+        if (library == null) {
+            try {
+                library = extract();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (library == null) {
+            try {
+                System.loadLibrary("curses4j");
+            } catch (UnsatisfiedLinkError e) {
+                if (failure != null) {
+                    e.addSuppressed(failure);
+                }
+                throw e;
+            }
+            library = System.mapLibraryName("curses4j");
+        } else {
+            System.load(library);
+        }
+        loadTime = nanoTime() - start;
+        path = library;
+    }
+
+    /**
+     * @return path of the cached library, or <code>null</code> if the jar has
+     *         no bundled library
+     */
+    private static String extract() throws IOException {
+        URL url = NativeLibrary.class.getClassLoader().getResource(RESOURCE);
+        if (url == null) {
+            return null;
+        }
+        URLConnection connection = url.openConnection();
+        long length = -1;
+        long crc = -1;
+        if (connection instanceof JarURLConnection) {
+            JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+            length = entry.getSize();
+            crc = entry.getCrc();
+        }
+        if (length < 0 || crc < 0) {
+            // not packaged in a jar, checksum the resource itself
+            CRC32 checksum = new CRC32();
+            byte[] buffer = new byte[16 * 1024];
+            length = 0;
+            try (InputStream is = url.openStream()) {
+                int len;
+                while ((len = is.read(buffer)) != -1) {
+                    checksum.update(buffer, 0, len);
+                    length += len;
+                }
+            }
+            crc = checksum.getValue();
+        }
+        String dir = getProperty("curses4j.cache.dir");
+        Path cache = dir != null ? Paths.get(dir)
+                : Paths.get(getProperty("java.io.tmpdir"), "curses4j-" + getProperty("user.name"));
+        cache = cache.toAbsolutePath();
+        if (cache.getParent() != null) {
+            createDirectories(cache.getParent());
+        }
+        privateDirectory(cache);
+        Path version = cache.resolve(String.format("%08x-%d", crc, length));
+        privateDirectory(version);
+        Path libFile = version.resolve(FILE_NAME);
+        if (!isRegularFile(libFile, NOFOLLOW_LINKS) || size(libFile) != length) {
+            Path tmpFile = createTempFile(version, "curses4j", ".tmp");
+            try {
+                CRC32 checksum = new CRC32();
+                try (InputStream is = new CheckedInputStream(connection.getInputStream(), checksum)) {
+                    copy(is, tmpFile, REPLACE_EXISTING);
+                }
+                if (checksum.getValue() != crc || size(tmpFile) != length) {
+                    throw new IOException("checksum mismatch extracting " + url);
+                }
+                try {
+                    move(tmpFile, libFile, ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    move(tmpFile, libFile, REPLACE_EXISTING);
+                }
+            } finally {
+                deleteIfExists(tmpFile);
+            }
+        }
+        return libFile.toString();
+    }
+
+    /**
+     * Creates <code>dir</code> with owner-only permissions, or checks that the
+     * existing one is as private as if it had been created so.
+     */
+    private static void privateDirectory(Path dir) throws IOException {
+        boolean posix = dir.getFileSystem().supportedFileAttributeViews().contains("posix");
+        try {
+            if (posix) {
+                createDirectory(dir, asFileAttribute(OWNER_ONLY));
+            } else {
+                createDirectory(dir);
+            }
+        } catch (FileAlreadyExistsException e) {
+            // checked below
+        }
+        if (!isDirectory(dir, NOFOLLOW_LINKS)) {
+            throw new IOException("not a directory: " + dir);
+        }
+        if (!posix) {
+            // the default temp directory on Windows is already per user
+            return;
+        }
+        UserPrincipal owner = getOwner(dir, NOFOLLOW_LINKS);
+        if (user == null) {
+            user = currentUser(dir);
+        }
+        if (!owner.equals(user)) {
+            throw new IOException(dir + " is owned by " + owner.getName() + ", not by " + user.getName());
+        }
+        Set<PosixFilePermission> permissions = getPosixFilePermissions(dir, NOFOLLOW_LINKS);
+        if (!OWNER_ONLY.containsAll(permissions)) {
+            throw new IOException(dir + " is accessible by other users: " + PosixFilePermissions.toString(permissions));
+        }
+    }
+
+    /**
+     * The owner of a file just created in <code>dir</code>. Looking up
+     * <code>user.name</code> fails for a uid without a passwd entry, as in
+     * containers that run with an arbitrary uid.
+     */
+    private static UserPrincipal currentUser(Path dir) throws IOException {
+        Path probe = createTempFile(dir, "curses4j", ".owner");
+        try {
+            return getOwner(probe, NOFOLLOW_LINKS);
+        } finally {
+            deleteIfExists(probe);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package io.webfolder.curses4j;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+import io.webfolder.curses4j.InputThread.KeyListener;
+
+/**
+ * Separates bracketed pastes from typed keys.
+ *
+ * With {@link Curses#setBracketedPaste(boolean)} on, the terminal sends
+ * pasted text between <code>ESC[200~</code> and <code>ESC[201~</code>. The
+ * decoder recognizes the markers in the key stream, decodes the UTF-8 bytes
+ * between them and hands the text to a {@link PasteListener} in chunks of up
+ * to <code>chunkSize</code> bytes, so a large paste is a few events instead
+ * of one per character. All other keys are passed to a {@link KeyListener}
+ * unchanged. Buffers are reused, chunks are only valid during the callback.
+ *
+ * A key that might start a marker, such as a lone <code>ESC</code>, is held
+ * back until the next key arrives; call {@link #flush()} when no more keys
+ * are waiting to release it.
+ */
+public final class PasteDecoder {
+
+    /**
+     * Receives pasted text.
+     */
+    public interface PasteListener {
+
+        /**
+         * @param last <code>true</code> for the final chunk of the paste
+         */
+        void onPaste(CharSequence chunk, boolean last);
+    }
+
+    private static final int ESC = 27;
+
+    private static final int[] START = { ESC, '[', '2', '0', '0', '~' };
+
+    private static final int[] END = { ESC, '[', '2', '0', '1', '~' };
+
+    private final KeyListener keys;
+
+    private final PasteListener paste;
+
+    private final ByteBuffer bytes;
+
+    private final CharBuffer chars;
+
+    private final CharsetDecoder decoder = UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private boolean pasting;
+
+    /* number of marker keys matched so far */
+    private int matched;
+
+    public PasteDecoder(KeyListener keys, PasteListener paste) {
+        this(keys, paste, 4096);
+    }
+
+    public PasteDecoder(KeyListener keys, PasteListener paste, int chunkSize) {
+        if (chunkSize < 16) {
+            throw new IllegalArgumentException("chunkSize must be at least 16");
+        }
+        this.keys = keys;
+        this.paste = paste;
+        this.bytes = ByteBuffer.allocate(chunkSize);
+        this.chars = CharBuffer.allocate(chunkSize);
+    }
+
+    /**
+     * @return <code>true</code> between the start and the end marker
+     */
+    public boolean isPasting() {
+        return pasting;
+    }
+
+    public void decode(int[] keys, int off, int len) {
+        Window.checkBounds(keys.length, off, len);
+        for (int i = off; i < off + len; i++) {
+            decode(keys[i]);
+        }
+    }
+
+    public void decode(int key) {
+        int[] marker = pasting ? END : START;
+        if (key == marker[matched]) {
+            if (++matched == marker.length) {
+                matched = 0;
+                if (pasting) {
+                    deliver(true);
+                }
+                pasting = !pasting;
+            }
+            return;
+        }
+        int held = matched;
+        matched = 0;
+        release(marker, held);
+        if (key == marker[0]) {
+            matched = 1;
+        } else {
+            emit(key);
+        }
+    }
+
+    /**
+     * Releases the keys held back as a possible marker start.
+     */
+    public void flush() {
+        int held = matched;
+        matched = 0;
+        release(pasting ? END : START, held);
+        if (pasting && ((Buffer) bytes).position() > 0) {
+            deliver(false);
+        }
+    }
+
+    private void release(int[] marker, int held) {
+        for (int i = 0; i < held; i++) {
+            emit(marker[i]);
+        }
+    }
+
+    private void emit(int key) {
+        if (!pasting) {
+            keys.onKey(key);
+        } else if (key >= 0 && key <= 0xff) {
+            bytes.put((byte) key);
+            if (!bytes.hasRemaining()) {
+                deliver(false);
+            }
+        }
+    }
+
+    private void deliver(boolean last) {
+        ((Buffer) bytes).flip();
+        decoder.decode(bytes, chars, last);
+        if (last) {
+            decoder.flush(chars);
+            decoder.reset();
+        }
+        bytes.compact();
+        ((Buffer) chars).flip();
+        if (chars.hasRemaining() || last) {
+            paste.onPaste(chars, last);
+        }
+        ((Buffer) chars).clear();
+    }
+}
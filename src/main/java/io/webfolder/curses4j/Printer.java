@@ -0,0 +1,189 @@
+package io.webfolder.curses4j;
+
+import java.util.Formatter;
+
+/**
+ * Reusable text builder of a {@link Window}.
+ *
+ * Numbers and strings are formatted straight into a char buffer that is
+ * reused between calls, and the text is written through the non-format
+ * <code>waddnwstr</code> path, so <code>%</code> in the output is never
+ * interpreted again by native code. A printer belongs to its window and, like
+ * the window, must only be used from the thread that draws it.
+ *
+ * <pre>
+ * win.printer().append("load ").append(load, 2).append('%').mvprint(0, 0);
+ * </pre>
+ */
+public final class Printer implements Appendable {
+
+    private static final long[] POW10 = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L,
+            100000000L, 1000000000L };
+
+    private final Window window;
+
+    private char[] buffer = new char[128];
+
+    private int length;
+
+    private Formatter formatter;
+
+    Printer(Window window) {
+        this.window = window;
+    }
+
+    /**
+     * Discards the pending text.
+     */
+    public Printer reset() {
+        length = 0;
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public Printer append(char c) {
+        ensure(1);
+        buffer[length++] = c;
+        return this;
+    }
+
+    @Override
+    public Printer append(CharSequence csq) {
+        return csq == null ? append("null", 0, 4) : append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Printer append(CharSequence csq, int start, int end) {
+        if (csq == null) {
+            return append("null", start, end);
+        }
+        int len = end - start;
+        ensure(len);
+        if (csq instanceof String) {
+            ((String) csq).getChars(start, end, buffer, length);
+            length += len;
+        } else {
+            for (int i = start; i < end; i++) {
+                buffer[length++] = csq.charAt(i);
+            }
+        }
+        return this;
+    }
+
+    public Printer append(int value) {
+        return append((long) value);
+    }
+
+    public Printer append(long value) {
+        return append(value, 0);
+    }
+
+    /**
+     * Appends a decimal number right-aligned in a field of
+     * <code>width</code> chars, like <code>%4d</code>.
+     */
+    public Printer append(long value, int width) {
+        int digits = 1;
+        long rest = value / 10;
+        while (rest != 0) {
+            digits++;
+            rest /= 10;
+        }
+        int len = value < 0 ? digits + 1 : digits;
+        pad(width - len);
+        ensure(len);
+        int pos = length + len;
+        long v = value;
+        do {
+            buffer[--pos] = (char) ('0' + Math.abs((int) (v % 10)));
+            v /= 10;
+        } while (v != 0);
+        if (value < 0) {
+            buffer[--pos] = '-';
+        }
+        length += len;
+        return this;
+    }
+
+    /**
+     * Appends a number rounded to <code>precision</code> (0 to 9) fraction
+     * digits, like <code>%.2f</code>.
+     */
+    public Printer append(double value, int precision) {
+        if (precision < 0 || precision >= POW10.length) {
+            throw new IllegalArgumentException("precision must be between 0 and " + (POW10.length - 1));
+        }
+        double scaled = Math.abs(value) * POW10[precision];
+        if (Double.isNaN(value) || scaled >= Long.MAX_VALUE) {
+            return append(Double.toString(value));
+        }
+        long units = Math.round(scaled);
+        if (value < 0 && units != 0) {
+            append('-');
+        }
+        append(units / POW10[precision]);
+        if (precision > 0) {
+            append('.');
+            long fraction = units % POW10[precision];
+            for (int i = precision - 1; i >= 0; i--) {
+                append((char) ('0' + (fraction / POW10[i]) % 10));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Appends text formatted with {@link Formatter} rules. The formatter is
+     * reused, but its conversions and the <code>args</code> array still
+     * allocate; prefer the typed <code>append</code> methods in hot paths.
+     */
+    public Printer format(String format, Object... args) {
+        if (formatter == null) {
+            formatter = new Formatter(this);
+        }
+        formatter.format(format, args);
+        return this;
+    }
+
+    /**
+     * Writes the pending text at the cursor position and resets the printer.
+     */
+    public int print() {
+        return mvprint(-1, -1);
+    }
+
+    /**
+     * Writes the pending text at <code>y, x</code> and resets the printer.
+     */
+    public int mvprint(int y, int x) {
+        int len = length;
+        length = 0;
+        return window.mvaddnstr(y, x, buffer, 0, len);
+    }
+
+    /**
+     * @return the pending text
+     */
+    @Override
+    public String toString() {
+        return new String(buffer, 0, length);
+    }
+
+    private void pad(int n) {
+        for (int i = 0; i < n; i++) {
+            append(' ');
+        }
+    }
+
+    private void ensure(int len) {
+        if (length + len > buffer.length) {
+            char[] grown = new char[Math.max(buffer.length * 2, length + len)];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+    }
+}
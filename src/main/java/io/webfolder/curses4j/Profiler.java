@@ -0,0 +1,158 @@
+package io.webfolder.curses4j;
+
+import static java.lang.System.nanoTime;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in call counter and timer of the per-window native methods.
+ *
+ * Started with <code>-Dcurses4j.profile=true</code>, windows then call
+ * native code through a subclass of their peer that counts every call and
+ * adds up its duration in striped counters. When the property is not set the
+ * plain peer is used and nothing is measured. The report is printed to
+ * standard error at shutdown and is available from {@link #report()}.
+ * Global calls, such as mode and color setup, are not measured.
+ */
+public final class Profiler {
+
+    private static final boolean ENABLED = Boolean.getBoolean("curses4j.profile");
+
+    static final String[] METHODS = {
+        "curses4j_winsertln", "curses4j_derwin", "curses4j_initscr", "curses4j_mvwaddstr",
+        "curses4j_mvwdelch", "curses4j_mvwinsch", "curses4j_nodelay", "curses4j_scrollok", "curses4j_idlok",
+        "curses4j_idcok", "curses4j_subwin", "curses4j_touchwin", "curses4j_wtouchln",
+        "curses4j_is_linetouched", "curses4j_is_wintouched", "curses4j_untouchwin", "curses4j_waddch",
+        "curses4j_waddstr", "curses4j_wattroff", "curses4j_wattron", "curses4j_wattrset", "curses4j_wbkgd",
+        "curses4j_wclear", "curses4j_wgetch", "curses4j_wgetnstr", "curses4j_wmove", "curses4j_wrefresh",
+        "curses4j_mvwaddch", "curses4j_winsch", "curses4j_winsstr", "curses4j_wdeleteln", "curses4j_wdelch",
+        "curses4j_winsdelln", "curses4j_wclrtoeol", "curses4j_wclrtobot", "curses4j_keypad",
+        "curses4j_delwin", "curses4j_wborder", "curses4j_box", "curses4j_mvwin", "curses4j_scroll",
+        "curses4j_wscrl", "curses4j_wsetscrreg", "curses4j_prefresh", "curses4j_subpad",
+        "curses4j_exec_batch", "curses4j_mvwaddchnstr", "curses4j_mvwaddchnstr_direct", "curses4j_winch",
+        "curses4j_mvwinch", "curses4j_mvwinchnstr", "curses4j_mvwinchnstr_direct", "curses4j_mvwaddnwstr",
+        "curses4j_getgeometry", "curses4j_getyx", "curses4j_getattrs", "curses4j_wnoutrefresh",
+        "curses4j_pnoutrefresh", "curses4j_wtimeout", "curses4j_notimeout", "curses4j_wenclose",
+        "curses4j_wmouse_trafo", "curses4j_wgetkeys"
+    };
+
+    private static final LongAdder[] CALLS = ENABLED ? adders() : null;
+
+    private static final LongAdder[] NANOS = ENABLED ? adders() : null;
+
+    static {
+        if (ENABLED) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> dump(System.err), "curses4j-profiler"));
+        }
+    }
+
+    private Profiler() {
+    }
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    static void record(int method, long start) {
+        NANOS[method].add(nanoTime() - start);
+        CALLS[method].increment();
+    }
+
+    /**
+     * @return number of calls to the native method, such as
+     *         <code>curses4j_waddch</code>
+     */
+    public static long getCalls(String method) {
+        int i = indexOf(method);
+        return i < 0 ? 0 : CALLS[i].sum();
+    }
+
+    /**
+     * @return nanoseconds spent in the native method
+     */
+    public static long getNanos(String method) {
+        int i = indexOf(method);
+        return i < 0 ? 0 : NANOS[i].sum();
+    }
+
+    public static void reset() {
+        if (ENABLED) {
+            for (int i = 0; i < METHODS.length; i++) {
+                CALLS[i].reset();
+                NANOS[i].reset();
+            }
+        }
+    }
+
+    /**
+     * @return table of the called native methods, most expensive first; calls
+     *         per frame are only known while {@link RenderMetrics} is enabled
+     */
+    public static String report() {
+        if (!ENABLED) {
+            return "curses4j profiler is disabled, run with -Dcurses4j.profile=true\n";
+        }
+        long[] calls = new long[METHODS.length];
+        long[] nanos = new long[METHODS.length];
+        Integer[] order = new Integer[METHODS.length];
+        for (int i = 0; i < METHODS.length; i++) {
+            calls[i] = CALLS[i].sum();
+            nanos[i] = NANOS[i].sum();
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> nanos[i]).reversed());
+        long frames = RenderMetrics.get().getFrameCount();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ENGLISH, "%-32s %12s %12s %10s %12s%n", "method", "calls", "total ms", "avg ns",
+                "calls/frame"));
+        for (int i : order) {
+            if (calls[i] == 0) {
+                continue;
+            }
+            sb.append(String.format(Locale.ENGLISH, "%-32s %12d %12.3f %10d %12s%n", METHODS[i], calls[i],
+                    nanos[i] / 1e6, nanos[i] / calls[i],
+                    frames == 0 ? "-" : String.format(Locale.ENGLISH, "%.1f", (double) calls[i] / frames)));
+        }
+        return sb.toString();
+    }
+
+    public static void dump(PrintStream out) {
+        out.print(report());
+        out.flush();
+    }
+
+    /**
+     * @return index of the native method in {@link #METHODS}
+     */
+    static int index(String method) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equals(method)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("not a profiled method: " + method);
+    }
+
+    private static int indexOf(String method) {
+        if (ENABLED) {
+            for (int i = 0; i < METHODS.length; i++) {
+                if (METHODS[i].equals(method)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static LongAdder[] adders() {
+        LongAdder[] adders = new LongAdder[METHODS.length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,708 @@
+package io.webfolder.curses4j;
+
+import static java.lang.System.nanoTime;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link CursesWindow} that counts and times every per-window native call,
+ * used in place of it while {@link Profiler} is enabled. The method indexes
+ * are looked up by name in {@link Profiler#METHODS}.
+ */
+final class ProfilingCursesWindow extends CursesWindow {
+
+    private static final int WINSERTLN = Profiler.index("curses4j_winsertln");
+    private static final int DERWIN = Profiler.index("curses4j_derwin");
+    private static final int INITSCR = Profiler.index("curses4j_initscr");
+    private static final int MVWADDSTR = Profiler.index("curses4j_mvwaddstr");
+    private static final int MVWDELCH = Profiler.index("curses4j_mvwdelch");
+    private static final int MVWINSCH = Profiler.index("curses4j_mvwinsch");
+    private static final int NODELAY = Profiler.index("curses4j_nodelay");
+    private static final int SCROLLOK = Profiler.index("curses4j_scrollok");
+    private static final int IDLOK = Profiler.index("curses4j_idlok");
+    private static final int IDCOK = Profiler.index("curses4j_idcok");
+    private static final int SUBWIN = Profiler.index("curses4j_subwin");
+    private static final int TOUCHWIN = Profiler.index("curses4j_touchwin");
+    private static final int WTOUCHLN = Profiler.index("curses4j_wtouchln");
+    private static final int IS_LINETOUCHED = Profiler.index("curses4j_is_linetouched");
+    private static final int IS_WINTOUCHED = Profiler.index("curses4j_is_wintouched");
+    private static final int UNTOUCHWIN = Profiler.index("curses4j_untouchwin");
+    private static final int WADDCH = Profiler.index("curses4j_waddch");
+    private static final int WADDSTR = Profiler.index("curses4j_waddstr");
+    private static final int WATTROFF = Profiler.index("curses4j_wattroff");
+    private static final int WATTRON = Profiler.index("curses4j_wattron");
+    private static final int WATTRSET = Profiler.index("curses4j_wattrset");
+    private static final int WBKGD = Profiler.index("curses4j_wbkgd");
+    private static final int WCLEAR = Profiler.index("curses4j_wclear");
+    private static final int WGETCH = Profiler.index("curses4j_wgetch");
+    private static final int WGETNSTR = Profiler.index("curses4j_wgetnstr");
+    private static final int WMOVE = Profiler.index("curses4j_wmove");
+    private static final int WREFRESH = Profiler.index("curses4j_wrefresh");
+    private static final int MVWADDCH = Profiler.index("curses4j_mvwaddch");
+    private static final int WINSCH = Profiler.index("curses4j_winsch");
+    private static final int WINSSTR = Profiler.index("curses4j_winsstr");
+    private static final int WDELETELN = Profiler.index("curses4j_wdeleteln");
+    private static final int WDELCH = Profiler.index("curses4j_wdelch");
+    private static final int WINSDELLN = Profiler.index("curses4j_winsdelln");
+    private static final int WCLRTOEOL = Profiler.index("curses4j_wclrtoeol");
+    private static final int WCLRTOBOT = Profiler.index("curses4j_wclrtobot");
+    private static final int KEYPAD = Profiler.index("curses4j_keypad");
+    private static final int DELWIN = Profiler.index("curses4j_delwin");
+    private static final int WBORDER = Profiler.index("curses4j_wborder");
+    private static final int BOX = Profiler.index("curses4j_box");
+    private static final int MVWIN = Profiler.index("curses4j_mvwin");
+    private static final int SCROLL = Profiler.index("curses4j_scroll");
+    private static final int WSCRL = Profiler.index("curses4j_wscrl");
+    private static final int WSETSCRREG = Profiler.index("curses4j_wsetscrreg");
+    private static final int PREFRESH = Profiler.index("curses4j_prefresh");
+    private static final int SUBPAD = Profiler.index("curses4j_subpad");
+    private static final int EXEC_BATCH = Profiler.index("curses4j_exec_batch");
+    private static final int MVWADDCHNSTR = Profiler.index("curses4j_mvwaddchnstr");
+    private static final int MVWADDCHNSTR_DIRECT = Profiler.index("curses4j_mvwaddchnstr_direct");
+    private static final int WINCH = Profiler.index("curses4j_winch");
+    private static final int MVWINCH = Profiler.index("curses4j_mvwinch");
+    private static final int MVWINCHNSTR = Profiler.index("curses4j_mvwinchnstr");
+    private static final int MVWINCHNSTR_DIRECT = Profiler.index("curses4j_mvwinchnstr_direct");
+    private static final int MVWADDNWSTR = Profiler.index("curses4j_mvwaddnwstr");
+    private static final int GETGEOMETRY = Profiler.index("curses4j_getgeometry");
+    private static final int GETYX = Profiler.index("curses4j_getyx");
+    private static final int GETATTRS = Profiler.index("curses4j_getattrs");
+    private static final int WNOUTREFRESH = Profiler.index("curses4j_wnoutrefresh");
+    private static final int PNOUTREFRESH = Profiler.index("curses4j_pnoutrefresh");
+    private static final int WTIMEOUT = Profiler.index("curses4j_wtimeout");
+    private static final int NOTIMEOUT = Profiler.index("curses4j_notimeout");
+    private static final int WENCLOSE = Profiler.index("curses4j_wenclose");
+    private static final int WMOUSE_TRAFO = Profiler.index("curses4j_wmouse_trafo");
+    private static final int WGETKEYS = Profiler.index("curses4j_wgetkeys");
+
+    @Override
+    int curses4j_winsertln(long peer) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_winsertln(peer);
+        } finally {
+            Profiler.record(WINSERTLN, start);
+        }
+    }
+
+    @Override
+    long curses4j_derwin(long peer, int nlines, int ncols, int begy, int begx) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_derwin(peer, nlines, ncols, begy, begx);
+        } finally {
+            Profiler.record(DERWIN, start);
+        }
+    }
+
+    @Override
+    long curses4j_initscr() {
+        long start = nanoTime();
+        try {
+            return super.curses4j_initscr();
+        } finally {
+            Profiler.record(INITSCR, start);
+        }
+    }
+
+    @Override
+    int curses4j_mvwaddstr(long peer, int y, int x, String str) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_mvwaddstr(peer, y, x, str);
+        } finally {
+            Profiler.record(MVWADDSTR, start);
+        }
+    }
+
+    @Override
+    int curses4j_mvwdelch(long peer, int y, int x) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_mvwdelch(peer, y, x);
+        } finally {
+            Profiler.record(MVWDELCH, start);
+        }
+    }
+
+    @Override
+    int curses4j_mvwinsch(long peer, int y, int x, char ch) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_mvwinsch(peer, y, x, ch);
+        } finally {
+            Profiler.record(MVWINSCH, start);
+        }
+    }
+
+    @Override
+    int curses4j_nodelay(long peer, int bf) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_nodelay(peer, bf);
+        } finally {
+            Profiler.record(NODELAY, start);
+        }
+    }
+
+    @Override
+    int curses4j_scrollok(long peer, int bf) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_scrollok(peer, bf);
+        } finally {
+            Profiler.record(SCROLLOK, start);
+        }
+    }
+
+    @Override
+    int curses4j_idlok(long peer, int bf) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_idlok(peer, bf);
+        } finally {
+            Profiler.record(IDLOK, start);
+        }
+    }
+
+    @Override
+    int curses4j_idcok(long peer, int bf) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_idcok(peer, bf);
+        } finally {
+            Profiler.record(IDCOK, start);
+        }
+    }
+
+    @Override
+    long curses4j_subwin(long peer, int nlines, int ncols, int begy, int begx) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_subwin(peer, nlines, ncols, begy, begx);
+        } finally {
+            Profiler.record(SUBWIN, start);
+        }
+    }
+
+    @Override
+    int curses4j_touchwin(long peer) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_touchwin(peer);
+        } finally {
+            Profiler.record(TOUCHWIN, start);
+        }
+    }
+
+    @Override
+    int curses4j_wtouchln(long peer, int y, int n, int changed) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wtouchln(peer, y, n, changed);
+        } finally {
+            Profiler.record(WTOUCHLN, start);
+        }
+    }
+
+    @Override
+    int curses4j_is_linetouched(long peer, int line) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_is_linetouched(peer, line);
+        } finally {
+            Profiler.record(IS_LINETOUCHED, start);
+        }
+    }
+
+    @Override
+    int curses4j_is_wintouched(long peer) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_is_wintouched(peer);
+        } finally {
+            Profiler.record(IS_WINTOUCHED, start);
+        }
+    }
+
+    @Override
+    int curses4j_untouchwin(long peer) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_untouchwin(peer);
+        } finally {
+            Profiler.record(UNTOUCHWIN, start);
+        }
+    }
+
+    @Override
+    int curses4j_waddch(long peer, int ch) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_waddch(peer, ch);
+        } finally {
+            Profiler.record(WADDCH, start);
+        }
+    }
+
+    @Override
+    int curses4j_waddstr(long peer, String str) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_waddstr(peer, str);
+        } finally {
+            Profiler.record(WADDSTR, start);
+        }
+    }
+
+    @Override
+    int curses4j_wattroff(long peer, int attrs) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wattroff(peer, attrs);
+        } finally {
+            Profiler.record(WATTROFF, start);
+        }
+    }
+
+    @Override
+    int curses4j_wattron(long peer, int attrs) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wattron(peer, attrs);
+        } finally {
+            Profiler.record(WATTRON, start);
+        }
+    }
+
+    @Override
+    int curses4j_wattrset(long peer, int attrs) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wattrset(peer, attrs);
+        } finally {
+            Profiler.record(WATTRSET, start);
+        }
+    }
+
+    @Override
+    int curses4j_wbkgd(long peer, long ch) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wbkgd(peer, ch);
+        } finally {
+            Profiler.record(WBKGD, start);
+        }
+    }
+
+    @Override
+    int curses4j_wclear(long peer) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wclear(peer);
+        } finally {
+            Profiler.record(WCLEAR, start);
+        }
+    }
+
+    @Override
+    int curses4j_wgetch(long peer) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wgetch(peer);
+        } finally {
+            Profiler.record(WGETCH, start);
+        }
+    }
+
+    @Override
+    String curses4j_wgetnstr(long peer, int n, int[] result) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wgetnstr(peer, n, result);
+        } finally {
+            Profiler.record(WGETNSTR, start);
+        }
+    }
+
+    @Override
+    int curses4j_wmove(long peer, int y, int x) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wmove(peer, y, x);
+        } finally {
+            Profiler.record(WMOVE, start);
+        }
+    }
+
+    @Override
+    int curses4j_wrefresh(long peer) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wrefresh(peer);
+        } finally {
+            Profiler.record(WREFRESH, start);
+        }
+    }
+
+    @Override
+    int curses4j_mvwaddch(long peer, int y, int x, int ch) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_mvwaddch(peer, y, x, ch);
+        } finally {
+            Profiler.record(MVWADDCH, start);
+        }
+    }
+
+    @Override
+    int curses4j_winsch(long peer, int ch) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_winsch(peer, ch);
+        } finally {
+            Profiler.record(WINSCH, start);
+        }
+    }
+
+    @Override
+    int curses4j_winsstr(long peer, String str) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_winsstr(peer, str);
+        } finally {
+            Profiler.record(WINSSTR, start);
+        }
+    }
+
+    @Override
+    int curses4j_wdeleteln(long peer) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wdeleteln(peer);
+        } finally {
+            Profiler.record(WDELETELN, start);
+        }
+    }
+
+    @Override
+    int curses4j_wdelch(long peer) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wdelch(peer);
+        } finally {
+            Profiler.record(WDELCH, start);
+        }
+    }
+
+    @Override
+    int curses4j_winsdelln(long peer, int n) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_winsdelln(peer, n);
+        } finally {
+            Profiler.record(WINSDELLN, start);
+        }
+    }
+
+    @Override
+    int curses4j_wclrtoeol(long peer) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wclrtoeol(peer);
+        } finally {
+            Profiler.record(WCLRTOEOL, start);
+        }
+    }
+
+    @Override
+    int curses4j_wclrtobot(long peer) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wclrtobot(peer);
+        } finally {
+            Profiler.record(WCLRTOBOT, start);
+        }
+    }
+
+    @Override
+    int curses4j_keypad(long peer, int bf) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_keypad(peer, bf);
+        } finally {
+            Profiler.record(KEYPAD, start);
+        }
+    }
+
+    @Override
+    int curses4j_delwin(long peer) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_delwin(peer);
+        } finally {
+            Profiler.record(DELWIN, start);
+        }
+    }
+
+    @Override
+    int curses4j_wborder(long peer, int ls, int rs, int ts, int bs, int tl, int tr, int bl, int br) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wborder(peer, ls, rs, ts, bs, tl, tr, bl, br);
+        } finally {
+            Profiler.record(WBORDER, start);
+        }
+    }
+
+    @Override
+    int curses4j_box(long peer, int verch, int horch) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_box(peer, verch, horch);
+        } finally {
+            Profiler.record(BOX, start);
+        }
+    }
+
+    @Override
+    int curses4j_mvwin(long peer, int y, int x) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_mvwin(peer, y, x);
+        } finally {
+            Profiler.record(MVWIN, start);
+        }
+    }
+
+    @Override
+    int curses4j_scroll(long peer) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_scroll(peer);
+        } finally {
+            Profiler.record(SCROLL, start);
+        }
+    }
+
+    @Override
+    int curses4j_wscrl(long peer, int n) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wscrl(peer, n);
+        } finally {
+            Profiler.record(WSCRL, start);
+        }
+    }
+
+    @Override
+    int curses4j_wsetscrreg(long peer, int top, int bot) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wsetscrreg(peer, top, bot);
+        } finally {
+            Profiler.record(WSETSCRREG, start);
+        }
+    }
+
+    @Override
+    int curses4j_prefresh(long peer, int py, int px, int sy1, int sx1, int sy2, int sx2) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_prefresh(peer, py, px, sy1, sx1, sy2, sx2);
+        } finally {
+            Profiler.record(PREFRESH, start);
+        }
+    }
+
+    @Override
+    long curses4j_subpad(long peer, int nlines, int ncols, int begy, int begx) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_subpad(peer, nlines, ncols, begy, begx);
+        } finally {
+            Profiler.record(SUBPAD, start);
+        }
+    }
+
+    @Override
+    int curses4j_exec_batch(long peer, ByteBuffer ops, int len) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_exec_batch(peer, ops, len);
+        } finally {
+            Profiler.record(EXEC_BATCH, start);
+        }
+    }
+
+    @Override
+    int curses4j_mvwaddchnstr(long peer, int y, int x, int[] cells, int off, int len) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_mvwaddchnstr(peer, y, x, cells, off, len);
+        } finally {
+            Profiler.record(MVWADDCHNSTR, start);
+        }
+    }
+
+    @Override
+    int curses4j_mvwaddchnstr_direct(long peer, int y, int x, Buffer cells, int off, int len) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_mvwaddchnstr_direct(peer, y, x, cells, off, len);
+        } finally {
+            Profiler.record(MVWADDCHNSTR_DIRECT, start);
+        }
+    }
+
+    @Override
+    int curses4j_winch(long peer) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_winch(peer);
+        } finally {
+            Profiler.record(WINCH, start);
+        }
+    }
+
+    @Override
+    int curses4j_mvwinch(long peer, int y, int x) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_mvwinch(peer, y, x);
+        } finally {
+            Profiler.record(MVWINCH, start);
+        }
+    }
+
+    @Override
+    int curses4j_mvwinchnstr(long peer, int y, int x, int[] cells, int off, int len) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_mvwinchnstr(peer, y, x, cells, off, len);
+        } finally {
+            Profiler.record(MVWINCHNSTR, start);
+        }
+    }
+
+    @Override
+    int curses4j_mvwinchnstr_direct(long peer, int y, int x, Buffer cells, int off, int len) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_mvwinchnstr_direct(peer, y, x, cells, off, len);
+        } finally {
+            Profiler.record(MVWINCHNSTR_DIRECT, start);
+        }
+    }
+
+    @Override
+    int curses4j_mvwaddnwstr(long peer, int y, int x, char[] str, int off, int len) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_mvwaddnwstr(peer, y, x, str, off, len);
+        } finally {
+            Profiler.record(MVWADDNWSTR, start);
+        }
+    }
+
+    @Override
+    void curses4j_getgeometry(long peer, int[] geometry) {
+        long start = nanoTime();
+        try {
+            super.curses4j_getgeometry(peer, geometry);
+        } finally {
+            Profiler.record(GETGEOMETRY, start);
+        }
+    }
+
+    @Override
+    long curses4j_getyx(long peer) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_getyx(peer);
+        } finally {
+            Profiler.record(GETYX, start);
+        }
+    }
+
+    @Override
+    int curses4j_getattrs(long peer) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_getattrs(peer);
+        } finally {
+            Profiler.record(GETATTRS, start);
+        }
+    }
+
+    @Override
+    int curses4j_wnoutrefresh(long peer) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wnoutrefresh(peer);
+        } finally {
+            Profiler.record(WNOUTREFRESH, start);
+        }
+    }
+
+    @Override
+    int curses4j_pnoutrefresh(long peer, int py, int px, int sy1, int sx1, int sy2, int sx2) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_pnoutrefresh(peer, py, px, sy1, sx1, sy2, sx2);
+        } finally {
+            Profiler.record(PNOUTREFRESH, start);
+        }
+    }
+
+    @Override
+    int curses4j_wtimeout(long peer, int delay) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wtimeout(peer, delay);
+        } finally {
+            Profiler.record(WTIMEOUT, start);
+        }
+    }
+
+    @Override
+    int curses4j_notimeout(long peer, int bf) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_notimeout(peer, bf);
+        } finally {
+            Profiler.record(NOTIMEOUT, start);
+        }
+    }
+
+    @Override
+    int curses4j_wenclose(long peer, int y, int x) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wenclose(peer, y, x);
+        } finally {
+            Profiler.record(WENCLOSE, start);
+        }
+    }
+
+    @Override
+    int curses4j_wmouse_trafo(long peer, int[] yx, int toScreen) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wmouse_trafo(peer, yx, toScreen);
+        } finally {
+            Profiler.record(WMOUSE_TRAFO, start);
+        }
+    }
+
+    @Override
+    int curses4j_wgetkeys(long peer, int[] keys, int off, int len, int delay) {
+        long start = nanoTime();
+        try {
+            return super.curses4j_wgetkeys(peer, keys, off, len, delay);
+        } finally {
+            Profiler.record(WGETKEYS, start);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package io.webfolder.curses4j;
+
+import static java.lang.System.nanoTime;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Latency of the refresh family of curses calls and frame rate.
+ *
+ * Every <code>wrefresh</code>, <code>prefresh</code>,
+ * <code>wnoutrefresh</code>, <code>pnoutrefresh</code> and
+ * <code>doupdate</code> is timed into a fixed-size histogram, and every
+ * physical update of the terminal (<code>wrefresh</code>,
+ * <code>prefresh</code> and <code>doupdate</code>) counts as a frame.
+ * Recording never allocates and takes no lock.
+ *
+ * Collection is off unless the JVM is started with
+ * <code>-Dcurses4j.metrics=true</code>. {@link #register()} publishes the
+ * metrics over JMX as <code>io.webfolder.curses4j:type=RenderMetrics</code>.
+ */
+public final class RenderMetrics implements RenderMetricsMXBean {
+
+    public static final String OBJECT_NAME = "io.webfolder.curses4j:type=RenderMetrics";
+
+    static final boolean ENABLED = Boolean.getBoolean("curses4j.metrics");
+
+    static final LatencyHistogram WREFRESH = new LatencyHistogram();
+
+    static final LatencyHistogram PREFRESH = new LatencyHistogram();
+
+    static final LatencyHistogram WNOUTREFRESH = new LatencyHistogram();
+
+    static final LatencyHistogram PNOUTREFRESH = new LatencyHistogram();
+
+    static final LatencyHistogram DOUPDATE = new LatencyHistogram();
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private static final RenderMetrics INSTANCE = new RenderMetrics();
+
+    private static final LongAdder FRAMES = new LongAdder();
+
+    /* second of nanoTime counted by FRAMES_IN_SECOND */
+    private static final AtomicLong SECOND_START = new AtomicLong();
+
+    private static final AtomicInteger FRAMES_IN_SECOND = new AtomicInteger();
+
+    private static volatile int lastSecondFrames;
+
+    private RenderMetrics() {
+    }
+
+    public static RenderMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server.
+     *
+     * @return <code>false</code> if they were already registered
+     */
+    public static boolean register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+            return true;
+        } catch (InstanceAlreadyExistsException e) {
+            return false;
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server.
+     */
+    public static void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (InstanceNotFoundException e) {
+            // not registered
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return start time of a timed call, or 0 when metrics are off
+     */
+    static long start() {
+        return ENABLED ? nanoTime() : 0;
+    }
+
+    static void end(LatencyHistogram histogram, long start) {
+        if (ENABLED) {
+            long now = nanoTime();
+            histogram.record(now - start);
+            if (histogram == WREFRESH || histogram == PREFRESH || histogram == DOUPDATE) {
+                frame(now);
+            }
+        }
+    }
+
+    private static void frame(long now) {
+        FRAMES.increment();
+        long current = now / SECOND;
+        long second = SECOND_START.get();
+        if (current != second && SECOND_START.compareAndSet(second, current)) {
+            // frames of other threads racing with the rollover may land in either second
+            int last = FRAMES_IN_SECOND.getAndSet(0);
+            lastSecondFrames = current == second + 1 ? last : 0;
+        }
+        FRAMES_IN_SECOND.incrementAndGet();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    @Override
+    public Latency getWrefresh() {
+        return latency(WREFRESH);
+    }
+
+    @Override
+    public Latency getPrefresh() {
+        return latency(PREFRESH);
+    }
+
+    @Override
+    public Latency getWnoutrefresh() {
+        return latency(WNOUTREFRESH);
+    }
+
+    @Override
+    public Latency getPnoutrefresh() {
+        return latency(PNOUTREFRESH);
+    }
+
+    @Override
+    public Latency getDoupdate() {
+        return latency(DOUPDATE);
+    }
+
+    @Override
+    public long getFrameCount() {
+        return FRAMES.sum();
+    }
+
+    @Override
+    public int getFramesPerSecond() {
+        long current = nanoTime() / SECOND;
+        long second = SECOND_START.get();
+        if (current == second) {
+            return lastSecondFrames;
+        }
+        return current == second + 1 ? FRAMES_IN_SECOND.get() : 0;
+    }
+
+    @Override
+    public void reset() {
+        WREFRESH.reset();
+        PREFRESH.reset();
+        WNOUTREFRESH.reset();
+        PNOUTREFRESH.reset();
+        DOUPDATE.reset();
+        FRAMES.reset();
+        FRAMES_IN_SECOND.set(0);
+        lastSecondFrames = 0;
+    }
+
+    private static Latency latency(LatencyHistogram histogram) {
+        long count = histogram.count();
+        return new Latency(count, count == 0 ? 0 : histogram.total() / count, histogram.percentile(50),
+                histogram.percentile(99), histogram.max());
+    }
+}
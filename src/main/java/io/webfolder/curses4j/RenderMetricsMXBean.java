@@ -0,0 +1,82 @@
+package io.webfolder.curses4j;
+
+/**
+ * Management interface of {@link RenderMetrics}, registered as
+ * <code>io.webfolder.curses4j:type=RenderMetrics</code> by
+ * {@link RenderMetrics#register()}.
+ */
+public interface RenderMetricsMXBean {
+
+    /**
+     * Latency summary of one native call, in nanoseconds.
+     */
+    final class Latency {
+
+        private final long count;
+
+        private final long mean;
+
+        private final long p50;
+
+        private final long p99;
+
+        private final long max;
+
+        public Latency(long count, long mean, long p50, long p99, long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMean() {
+            return mean;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", mean=" + mean + ", p50=" + p50 + ", p99=" + p99 + ", max=" + max;
+        }
+    }
+
+    boolean isEnabled();
+
+    Latency getWrefresh();
+
+    Latency getPrefresh();
+
+    Latency getWnoutrefresh();
+
+    Latency getPnoutrefresh();
+
+    Latency getDoupdate();
+
+    /**
+     * @return number of physical terminal updates
+     */
+    long getFrameCount();
+
+    /**
+     * @return physical terminal updates during the last full second
+     */
+    int getFramesPerSecond();
+
+    void reset();
+}
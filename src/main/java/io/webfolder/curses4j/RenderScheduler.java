@@ -0,0 +1,165 @@
+package io.webfolder.curses4j;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coalesces refreshes into at most <code>maxFps</code> physical updates per
+ * second.
+ *
+ * While the scheduler runs, {@link Window#refresh()} only copies the window
+ * to the virtual screen. A dedicated daemon thread then updates the terminal
+ * with <code>doupdate</code> once per tick, and sleeps while nothing was
+ * refreshed. Use
+ * {@link #flush()} when an update must be visible immediately, for example
+ * to echo input.
+ *
+ * curses itself is not thread safe: code that draws while the scheduler runs
+ * must hold {@link Curses#lock()}, which the render thread takes for every
+ * update.
+ *
+ * <pre>
+ * try (RenderScheduler scheduler = RenderScheduler.start(30)) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class RenderScheduler implements AutoCloseable {
+
+    private final Frame frame = new Frame();
+
+    private final ReentrantLock lock = Curses.LOCK;
+
+    private final Condition dirty = lock.newCondition();
+
+    private final long interval;
+
+    private final Thread thread;
+
+    private volatile boolean running = true;
+
+    /* written under the lock, read by the render thread while it waits */
+    private volatile long lastFlush;
+
+    private RenderScheduler(int maxFps) {
+        if (maxFps <= 0) {
+            throw new IllegalArgumentException("maxFps must be positive");
+        }
+        interval = SECONDS.toNanos(1) / maxFps;
+        lastFlush = nanoTime() - interval;
+        frame.scheduler = this;
+        thread = new Thread(this::run, "curses4j-render");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts a scheduler. It takes the place of a {@link Frame}, so it can not
+     * be started while a frame is active.
+     */
+    public static RenderScheduler start(int maxFps) {
+        RenderScheduler scheduler = new RenderScheduler(maxFps);
+        Frame.activate(scheduler.frame);
+        scheduler.thread.start();
+        return scheduler;
+    }
+
+    /**
+     * @return the lock held by the render thread while it updates the
+     *         terminal, the same as {@link Curses#lock()}
+     */
+    public Lock lock() {
+        return lock;
+    }
+
+    /**
+     * Updates the terminal with the refreshed windows now, on the calling
+     * thread.
+     */
+    public int flush() {
+        lock.lock();
+        try {
+            lastFlush = nanoTime();
+            return frame.flush();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the render thread and flushes the remaining refreshes.
+     */
+    @Override
+    public void close() {
+        running = false;
+        lock.lock();
+        try {
+            dirty.signal();
+        } finally {
+            lock.unlock();
+        }
+        LockSupport.unpark(thread);
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        try {
+            flush();
+        } finally {
+            frame.deactivate();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    int refresh(Window window) {
+        lock.lock();
+        try {
+            int ret = frame.copy(window);
+            dirty.signal();
+            return ret;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int prefresh(Window pad, int py, int px, int sy1, int sx1, int sy2, int sx2) {
+        lock.lock();
+        try {
+            int ret = frame.copy(pad, py, px, sy1, sx1, sy2, sx2);
+            dirty.signal();
+            return ret;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            lock.lock();
+            try {
+                while (running && !frame.isPending()) {
+                    dirty.awaitUninterruptibly();
+                }
+            } finally {
+                lock.unlock();
+            }
+            long wait;
+            while (running && (wait = lastFlush + interval - nanoTime()) > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+            if (running) {
+                flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package io.webfolder.curses4j;
+
+import static io.webfolder.curses4j.ChType.A_CHARTEXT;
+import static io.webfolder.curses4j.Curses.ERR;
+import static io.webfolder.curses4j.Curses.OK;
+import static java.nio.ByteBuffer.allocateDirect;
+import static java.nio.ByteOrder.nativeOrder;
+
+import java.nio.Buffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Off-heap framebuffer of a {@link Window}.
+ *
+ * Cells are drawn into a row-major grid of <code>chtype</code> ints with
+ * plain memory writes. Each written row is marked in a dirty bitmap together
+ * with its leftmost and rightmost written column. {@link #flush()} compares
+ * the damaged part of every dirty row with the last committed frame and sends
+ * only the changed runs to the window with
+ * {@link Window#mvaddchnstr(int, int, IntBuffer)}. Changed cells separated by
+ * a few unchanged ones are sent as a single run, which is cheaper than an
+ * extra native call. Cells whose character is 0 are sent as blanks.
+ *
+ * The buffer starts as a snapshot of the window. If the window is changed
+ * behind its back, {@link #invalidate()} makes the next flush resend
+ * everything. Like its window, a buffer must only be used from the thread
+ * that draws it.
+ *
+ * <pre>
+ * ScreenBuffer screen = new ScreenBuffer(win);
+ * screen.print(0, 0, "cpu ", A_BOLD);
+ * screen.flush();
+ * win.refresh();
+ * </pre>
+ */
+public final class ScreenBuffer {
+
+    /**
+     * Longest run of unchanged cells merged into the surrounding runs.
+     */
+    private static final int GAP = 8;
+
+    private final Window window;
+
+    private int rows;
+
+    private int cols;
+
+    private IntBuffer front;
+
+    private IntBuffer out;
+
+    private int[] committed;
+
+    private long[] dirty;
+
+    private int[] min;
+
+    private int[] max;
+
+    private boolean invalid;
+
+    private long flushedCells;
+
+    private long flushedRuns;
+
+    public ScreenBuffer(Window window) {
+        this.window = window;
+        allocate(window.getmaxy(), window.getmaxx());
+        load();
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int cols() {
+        return cols;
+    }
+
+    public int get(int y, int x) {
+        return inside(y, x) ? front.get(y * cols + x) : ERR;
+    }
+
+    public int set(int y, int x, int ch) {
+        if (!inside(y, x)) {
+            return ERR;
+        }
+        front.put(y * cols + x, ch);
+        damage(y, x, x);
+        return OK;
+    }
+
+    /**
+     * Copies <code>len</code> cells to row <code>y</code> starting at column
+     * <code>x</code>, truncated at the right edge.
+     */
+    public int put(int y, int x, int[] cells, int off, int len) {
+        Window.checkBounds(cells.length, off, len);
+        if (!inside(y, x)) {
+            return ERR;
+        }
+        len = Math.min(len, cols - x);
+        if (len > 0) {
+            ((Buffer) front).position(y * cols + x);
+            front.put(cells, off, len);
+            damage(y, x, x + len - 1);
+        }
+        return OK;
+    }
+
+    /**
+     * Writes <code>str</code> with the given attributes to row
+     * <code>y</code> starting at column <code>x</code>, truncated at the
+     * right edge. Each char takes one cell; control characters and chars
+     * that do not fit in {@link ChType#A_CHARTEXT} are shown as
+     * <code>?</code>.
+     */
+    public int print(int y, int x, CharSequence str, int attrs) {
+        if (!inside(y, x)) {
+            return ERR;
+        }
+        int len = Math.min(str.length(), cols - x);
+        int base = y * cols + x;
+        for (int i = 0; i < len; i++) {
+            front.put(base + i, ChType.printable(str.charAt(i)) | (attrs & ~A_CHARTEXT));
+        }
+        if (len > 0) {
+            damage(y, x, x + len - 1);
+        }
+        return OK;
+    }
+
+    /**
+     * Sets <code>len</code> cells of row <code>y</code> starting at column
+     * <code>x</code> to <code>ch</code>, truncated at the right edge.
+     */
+    public int fill(int y, int x, int len, int ch) {
+        if (!inside(y, x)) {
+            return ERR;
+        }
+        len = Math.min(len, cols - x);
+        int base = y * cols + x;
+        for (int i = 0; i < len; i++) {
+            front.put(base + i, ch);
+        }
+        if (len > 0) {
+            damage(y, x, x + len - 1);
+        }
+        return OK;
+    }
+
+    /**
+     * Sets every cell to <code>ch</code>.
+     */
+    public int clear(int ch) {
+        for (int y = 0; y < rows; y++) {
+            fill(y, 0, cols, ch);
+        }
+        return OK;
+    }
+
+    /**
+     * Makes the next flush resend every cell.
+     */
+    public void invalidate() {
+        invalid = true;
+        for (int y = 0; y < rows; y++) {
+            damage(y, 0, cols - 1);
+        }
+    }
+
+    /**
+     * Follows a change of the window size. The grid is reloaded from the
+     * window if the size changed, discarding cells that were not flushed.
+     *
+     * @return <code>true</code> if the size changed
+     */
+    public boolean resize() {
+        int rows = window.getmaxy();
+        int cols = window.getmaxx();
+        if (rows == this.rows && cols == this.cols) {
+            return false;
+        }
+        allocate(rows, cols);
+        load();
+        return true;
+    }
+
+    /**
+     * Sends the cells changed since the last flush to the window. The terminal
+     * is not updated until the window is refreshed.
+     *
+     * @return <code>ERR</code> if any of the writes failed
+     */
+    public int flush() {
+        Object event = Jfr.flush();
+        long cells = flushedCells;
+        int ret = OK;
+        for (int w = 0; w < dirty.length; w++) {
+            long bits = dirty[w];
+            while (bits != 0) {
+                int y = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (flush(y, min[y], max[y]) == ERR) {
+                    ret = ERR;
+                }
+                min[y] = cols;
+                max[y] = -1;
+            }
+            dirty[w] = 0;
+        }
+        invalid = false;
+        Jfr.flush(event, "screen", (int) (flushedCells - cells));
+        return ret;
+    }
+
+    /**
+     * @return total number of cells sent to the window by {@link #flush()}
+     */
+    public long getFlushedCells() {
+        return flushedCells;
+    }
+
+    /**
+     * @return total number of native writes made by {@link #flush()}
+     */
+    public long getFlushedRuns() {
+        return flushedRuns;
+    }
+
+    private int flush(int y, int from, int to) {
+        int ret = OK;
+        int base = y * cols;
+        int x = from;
+        while (x <= to) {
+            if (cell(base + x) == committed[base + x] && !invalid) {
+                x++;
+                continue;
+            }
+            int start = x;
+            int end = x;
+            int same = 0;
+            for (x++; x <= to && same <= GAP; x++) {
+                if (cell(base + x) != committed[base + x] || invalid) {
+                    end = x;
+                    same = 0;
+                } else {
+                    same++;
+                }
+            }
+            x = end + 1;
+            int len = end - start + 1;
+            ((Buffer) out).limit(base + end + 1).position(base + start);
+            if (window.mvaddchnstr(y, start, out) == ERR) {
+                ret = ERR;
+            }
+            ((Buffer) front).position(base + start);
+            front.get(committed, base + start, len);
+            flushedCells += len;
+            flushedRuns++;
+        }
+        return ret;
+    }
+
+    /**
+     * @return the cell at index <code>i</code>, made safe to send
+     */
+    private int cell(int i) {
+        int ch = front.get(i);
+        int safe = ChType.nonEmpty(ch);
+        if (safe != ch) {
+            front.put(i, safe);
+        }
+        return safe;
+    }
+
+    private void allocate(int rows, int cols) {
+        this.rows = Math.max(rows, 0);
+        this.cols = Math.max(cols, 0);
+        int size = this.rows * this.cols;
+        front = allocateDirect(size * Integer.BYTES).order(nativeOrder()).asIntBuffer();
+        out = front.duplicate();
+        committed = new int[size];
+        dirty = new long[(this.rows + 63) >>> 6];
+        min = new int[this.rows];
+        max = new int[this.rows];
+        Arrays.fill(min, this.cols);
+        Arrays.fill(max, -1);
+    }
+
+    private void load() {
+        if (window.readCells(front) == front.capacity()) {
+            ((Buffer) front).clear();
+            front.get(committed);
+        } else {
+            invalidate();
+        }
+    }
+
+    private boolean inside(int y, int x) {
+        return y >= 0 && y < rows && x >= 0 && x < cols;
+    }
+
+    private void damage(int y, int from, int to) {
+        dirty[y >>> 6] |= 1L << y;
+        if (from < min[y]) {
+            min[y] = from;
+        }
+        if (to > max[y]) {
+            max[y] = to;
+        }
+    }
+}
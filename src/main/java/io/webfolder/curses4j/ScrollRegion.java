@@ -0,0 +1,101 @@
+package io.webfolder.curses4j;
+
+import static io.webfolder.curses4j.Curses.ERR;
+import static io.webfolder.curses4j.Curses.OK;
+
+/**
+ * Band of lines of a window that scrolls on its own.
+ *
+ * The region becomes the window's scroll region, and <code>idlok</code>,
+ * <code>idcok</code> and <code>scrollok</code> are enabled, so that curses
+ * can move the lines with the terminal's scroll and insert/delete line
+ * sequences instead of repainting them. Lines inserted or deleted inside the
+ * region only move the lines below them up to the bottom of the region.
+ *
+ * The window's scroll region is set again before every scroll, so several
+ * regions, a {@link Scrollback} or other <code>setscrreg</code> calls can
+ * share a window. A region that is already in effect is not sent again, see
+ * {@link Window#setscrreg(int, int)}.
+ */
+public final class ScrollRegion {
+
+    private final Window window;
+
+    private final int top;
+
+    private final int bottom;
+
+    /**
+     * Binds the lines <code>top</code> to <code>bottom</code> of
+     * <code>window</code>.
+     */
+    public ScrollRegion(Window window, int top, int bottom) {
+        if (top < 0 || bottom < top || bottom >= window.getmaxy()) {
+            throw new IllegalArgumentException("invalid region: " + top + ", " + bottom);
+        }
+        this.window = window;
+        this.top = top;
+        this.bottom = bottom;
+        window.idlok(true);
+        window.idcok(true);
+        window.scrollok(true);
+        window.setscrreg(top, bottom);
+    }
+
+    public int top() {
+        return top;
+    }
+
+    public int bottom() {
+        return bottom;
+    }
+
+    public int height() {
+        return bottom - top + 1;
+    }
+
+    /**
+     * Scrolls the region <code>n</code> lines up, or down if negative. The
+     * exposed lines are blank.
+     */
+    public int scroll(int n) {
+        return n == 0 ? OK : scroll(top, n);
+    }
+
+    /**
+     * Inserts <code>n</code> blank lines before line <code>y</code> of the
+     * region.
+     */
+    public int insertln(int y, int n) {
+        return shift(y, -n);
+    }
+
+    /**
+     * Deletes <code>n</code> lines starting at line <code>y</code> of the
+     * region.
+     */
+    public int deleteln(int y, int n) {
+        return shift(y, n);
+    }
+
+    private int shift(int y, int n) {
+        if (y < 0 || y >= height()) {
+            return ERR;
+        }
+        if (n == 0) {
+            return OK;
+        }
+        int ret = scroll(top + y, n);
+        if (y > 0 && window.setscrreg(top, bottom) == ERR) {
+            ret = ERR;
+        }
+        return ret;
+    }
+
+    private int scroll(int from, int n) {
+        if (window.setscrreg(from, bottom) == ERR) {
+            return ERR;
+        }
+        return window.scrl(n);
+    }
+}
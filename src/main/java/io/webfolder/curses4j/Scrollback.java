@@ -0,0 +1,220 @@
+package io.webfolder.curses4j;
+
+import static io.webfolder.curses4j.ChType.A_CHARTEXT;
+import static io.webfolder.curses4j.Curses.ERR;
+import static io.webfolder.curses4j.Curses.OK;
+import static java.nio.ByteBuffer.allocateDirect;
+import static java.nio.ByteOrder.nativeOrder;
+
+import java.nio.Buffer;
+import java.nio.IntBuffer;
+
+/**
+ * Tailing log pane with a fixed size history.
+ *
+ * Appended lines are stored as cells, padded to the pane width, in an
+ * off-heap ring of <code>capacity</code> lines; the oldest line is dropped
+ * when the ring is full and no object is kept per line. The pane occupies the
+ * lines <code>top</code> to <code>bottom</code> of its window, which become
+ * a {@link ScrollRegion}. An append scrolls the region by one line with
+ * <code>wscrl</code> and writes the new bottom row, and scrolling through the
+ * history shifts the region and redraws only the exposed rows.
+ *
+ * The window is not refreshed by the pane. Like its window, a pane must only
+ * be used from the thread that draws it.
+ */
+public final class Scrollback {
+
+    private static final int BLANK = ' ';
+
+    private final Window window;
+
+    private final ScrollRegion region;
+
+    private final int top;
+
+    private final int height;
+
+    private final int width;
+
+    private final int capacity;
+
+    private final IntBuffer ring;
+
+    private final IntBuffer out;
+
+    /* total number of lines ever appended */
+    private long head;
+
+    private int size;
+
+    /* number of lines the view is scrolled back from the tail */
+    private int offset;
+
+    /**
+     * Creates a pane in the lines <code>top</code> to <code>bottom</code>
+     * of <code>window</code>, remembering up to <code>capacity</code> lines.
+     * The history must hold at least the lines of the pane.
+     */
+    public Scrollback(Window window, int top, int bottom, int capacity) {
+        int width = window.getmaxx();
+        if (top < 0 || bottom < top || bottom >= window.getmaxy() || capacity <= 0 || width <= 0) {
+            throw new IllegalArgumentException();
+        }
+        if (capacity < bottom - top + 1) {
+            throw new IllegalArgumentException("capacity is smaller than the pane: " + capacity);
+        }
+        if ((long) capacity * width > Integer.MAX_VALUE / Integer.BYTES) {
+            throw new IllegalArgumentException("capacity is too large: " + capacity);
+        }
+        this.window = window;
+        this.top = top;
+        this.height = bottom - top + 1;
+        this.width = width;
+        this.capacity = capacity;
+        this.ring = allocateDirect(capacity * width * Integer.BYTES).order(nativeOrder()).asIntBuffer();
+        this.out = ring.duplicate();
+        this.region = new ScrollRegion(window, top, bottom);
+    }
+
+    /**
+     * @return number of lines in the history
+     */
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of lines the view is scrolled back from the last line
+     */
+    public int offset() {
+        return offset;
+    }
+
+    /**
+     * Appends a line of text with the given attributes. Text beyond the pane
+     * width is cut. Control characters and chars that do not fit in
+     * {@link ChType#A_CHARTEXT} are shown as <code>?</code>.
+     */
+    public int append(CharSequence line, int attrs) {
+        int base = slot();
+        int len = Math.min(line.length(), width);
+        for (int i = 0; i < len; i++) {
+            ring.put(base + i, ChType.printable(line.charAt(i)) | (attrs & ~A_CHARTEXT));
+        }
+        return appended(base);
+    }
+
+    /**
+     * Appends a line of pre-attributed cells. Cells beyond the pane width are
+     * cut, and cells whose character is 0 become blanks.
+     */
+    public int append(int[] cells, int off, int len) {
+        Window.checkBounds(cells.length, off, len);
+        int base = slot();
+        len = Math.min(len, width);
+        for (int i = 0; i < len; i++) {
+            ring.put(base + i, ChType.nonEmpty(cells[off + i]));
+        }
+        return appended(base);
+    }
+
+    /**
+     * Scrolls the view <code>n</code> lines back into the history, or
+     * towards the tail if negative. Only the exposed rows are redrawn.
+     */
+    public int scroll(int n) {
+        return scrollTo(offset + n);
+    }
+
+    /**
+     * Scrolls the view <code>offset</code> lines back from the tail.
+     */
+    public int scrollTo(int offset) {
+        int next = Math.max(0, Math.min(offset, size - height));
+        int delta = next - this.offset;
+        this.offset = next;
+        if (delta == 0) {
+            return OK;
+        }
+        if (Math.abs(delta) >= height) {
+            return redraw();
+        }
+        int ret = region.scroll(-delta);
+        if (delta > 0) {
+            return draw(0, delta) == ERR ? ERR : ret;
+        } else {
+            return draw(height + delta, height) == ERR ? ERR : ret;
+        }
+    }
+
+    /**
+     * Draws every row of the pane, for example after the window was cleared.
+     */
+    public int redraw() {
+        return draw(0, height);
+    }
+
+    /**
+     * @return ring index of the next line, with the previous contents blanked
+     */
+    private int slot() {
+        int base = (int) (head % capacity) * width;
+        for (int i = 0; i < width; i++) {
+            ring.put(base + i, BLANK);
+        }
+        return base;
+    }
+
+    private int appended(int base) {
+        head++;
+        if (size < capacity) {
+            size++;
+        }
+        if (offset > 0) {
+            if (offset + 1 <= size - height) {
+                offset++;
+                return OK;
+            }
+            offset = size - height;
+            return redraw();
+        }
+        if (size <= height) {
+            return row(size - 1, base);
+        }
+        int ret = region.scroll(1);
+        return row(height - 1, base) == ERR ? ERR : ret;
+    }
+
+    /**
+     * Draws the pane rows from <code>from</code> to <code>to</code>,
+     * exclusive.
+     */
+    private int draw(int from, int to) {
+        int ret = OK;
+        long first = head - size;
+        long shown = size <= height ? first : head - height - offset;
+        for (int y = from; y < to; y++) {
+            long line = shown + y;
+            int status = line < head ? row(y, (int) (line % capacity) * width) : blank(y);
+            if (status == ERR) {
+                ret = ERR;
+            }
+        }
+        return ret;
+    }
+
+    private int row(int y, int base) {
+        ((Buffer) out).limit(base + width).position(base);
+        return window.mvaddchnstr(top + y, 0, out);
+    }
+
+    private int blank(int y) {
+        window.move(top + y, 0);
+        return window.clrtoeol();
+    }
+}
@@ -0,0 +1,197 @@
+package io.webfolder.curses4j;
+
+import static io.webfolder.curses4j.Curses.ERR;
+import static io.webfolder.curses4j.Curses.OK;
+
+import java.util.Arrays;
+
+/**
+ * Scrollable view of a document of any length.
+ *
+ * Only a pad of the viewport height plus a margin above and below is
+ * allocated, and its lines are pulled from a {@link RowSource} when they
+ * become visible. Scrolling within the margin is a plain <code>prefresh</code>
+ * at another offset. Scrolling past it shifts the pad contents with
+ * <code>wscrl</code> and fetches only the lines that were exposed, so memory
+ * and scroll cost depend on the screen size, never on the document length.
+ *
+ * <pre>
+ * try (VirtualPad view = new VirtualPad(source, 0, 0, LINES() - 1, COLS() - 1, 50)) {
+ *     view.scroll(+1);
+ *     view.refresh();
+ * }
+ * </pre>
+ */
+public final class VirtualPad implements AutoCloseable {
+
+    /**
+     * Supplies the lines of a {@link VirtualPad}.
+     */
+    public interface RowSource {
+
+        /**
+         * @return number of lines in the document
+         */
+        long lines();
+
+        /**
+         * Writes the cells of <code>line</code> into <code>cells</code>, which
+         * is reused between calls.
+         *
+         * @return number of cells written, the rest of the row is blanked, as
+         *         are cells whose character is 0
+         */
+        int row(long line, int[] cells);
+    }
+
+    private static final int BLANK = ' ';
+
+    private final RowSource source;
+
+    private final Window pad;
+
+    private final int rows;
+
+    private final int cols;
+
+    private final int sy1;
+
+    private final int sx1;
+
+    private final int sy2;
+
+    private final int sx2;
+
+    private final int[] cells;
+
+    /* first document line held by the pad, -1 while the pad is empty */
+    private long base = -1;
+
+    private long top;
+
+    /**
+     * Creates a view of <code>source</code> in the screen rectangle from
+     * <code>sy1, sx1</code> to <code>sy2, sx2</code>, keeping
+     * <code>margin</code> lines above and below it in the pad.
+     */
+    public VirtualPad(RowSource source, int sy1, int sx1, int sy2, int sx2, int margin) {
+        if (sy2 < sy1 || sx2 < sx1 || margin < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.source = source;
+        this.sy1 = sy1;
+        this.sx1 = sx1;
+        this.sy2 = sy2;
+        this.sx2 = sx2;
+        this.rows = sy2 - sy1 + 1 + 2 * margin;
+        this.cols = sx2 - sx1 + 1;
+        this.cells = new int[cols];
+        this.pad = Window.newpad(rows, cols);
+        if (pad == null) {
+            throw new IllegalStateException("unable to create pad");
+        }
+        pad.scrollok(true);
+    }
+
+    /**
+     * @return first visible document line
+     */
+    public long top() {
+        return top;
+    }
+
+    /**
+     * Scrolls the view so that <code>line</code> is the first visible line.
+     * The view stops at the start and at the end of the document.
+     */
+    public int scrollTo(long line) {
+        long last = Math.max(source.lines() - height(), 0);
+        top = Math.max(0, Math.min(line, last));
+        return OK;
+    }
+
+    /**
+     * Scrolls the view by <code>n</code> lines, forward if positive.
+     */
+    public int scroll(long n) {
+        return scrollTo(top + n);
+    }
+
+    /**
+     * Refetches every line, for example after the document changed.
+     */
+    public void invalidate() {
+        base = -1;
+    }
+
+    /**
+     * Fills the lines that became visible and updates the screen rectangle.
+     */
+    public int refresh() {
+        int ret = fill();
+        if (pad.prefresh((int) (top - base), 0, sy1, sx1, sy2, sx2) == ERR) {
+            ret = ERR;
+        }
+        return ret;
+    }
+
+    /**
+     * Like {@link #refresh()}, but only copies the view to the virtual screen.
+     */
+    public int noutrefresh() {
+        int ret = fill();
+        if (pad.pnoutrefresh((int) (top - base), 0, sy1, sx1, sy2, sx2) == ERR) {
+            ret = ERR;
+        }
+        return ret;
+    }
+
+    @Override
+    public void close() {
+        pad.delwin();
+    }
+
+    private int height() {
+        return sy2 - sy1 + 1;
+    }
+
+    private int fill() {
+        if (base >= 0 && top >= base && top + height() <= base + rows) {
+            return OK;
+        }
+        long next = Math.max(top - (rows - height()) / 2, 0);
+        long shift = next - base;
+        if (base < 0 || Math.abs(shift) >= rows) {
+            base = next;
+            return fill(0, rows);
+        }
+        base = next;
+        int ret = pad.scrl((int) shift);
+        if (shift > 0) {
+            return fill(rows - (int) shift, rows) == ERR ? ERR : ret;
+        } else {
+            return fill(0, (int) -shift) == ERR ? ERR : ret;
+        }
+    }
+
+    /**
+     * Fetches the pad rows from <code>from</code> to <code>to</code>,
+     * exclusive.
+     */
+    private int fill(int from, int to) {
+        int ret = OK;
+        long lines = source.lines();
+        for (int y = from; y < to; y++) {
+            long line = base + y;
+            int len = line < lines ? Math.max(Math.min(source.row(line, cells), cols), 0) : 0;
+            for (int x = 0; x < len; x++) {
+                cells[x] = ChType.nonEmpty(cells[x]);
+            }
+            Arrays.fill(cells, len, cols, BLANK);
+            if (pad.mvaddchnstr(y, 0, cells, 0, cols) == ERR) {
+                ret = ERR;
+            }
+        }
+        return ret;
+    }
+}
@@ -1,32 +1,99 @@
 package io.webfolder.curses4j;
 
+import static io.webfolder.curses4j.CommandBuffer.OP_ATTROFF;
+import static io.webfolder.curses4j.CommandBuffer.OP_ATTRON;
+import static io.webfolder.curses4j.CommandBuffer.OP_ATTRSET;
+import static io.webfolder.curses4j.Curses.A_ATTRIBUTES;
+import static io.webfolder.curses4j.Curses.A_COLOR;
 import static io.webfolder.curses4j.Curses.ERR;
 import static io.webfolder.curses4j.Curses.FALSE;
+import static io.webfolder.curses4j.Curses.OK;
 import static io.webfolder.curses4j.Curses.TRUE;
-import static io.webfolder.curses4j.CursesWindow.curses4j_newwin;
-import static java.lang.String.format;
+import static io.webfolder.curses4j.CursesWindow.SCREEN;
+import static java.nio.ByteOrder.nativeOrder;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
 
 public class Window {
 
     public static final Window stdscr = new Window();
 
-    final CursesWindow peer = new CursesWindow();
+    final CursesWindow peer = CursesWindow.create();
+
+    private CommandBuffer batch;
+
+    private static final boolean CHECK_CACHE = Boolean.getBoolean("curses4j.checkCache");
+
+    private static final int BEGY = 0;
+    private static final int BEGX = 1;
+    private static final int MAXY = 2;
+    private static final int MAXX = 3;
+    private static final int PARY = 4;
+    private static final int PARX = 5;
+
+    /* bumped by whichever thread sees KEY_RESIZE, see Curses.lock() */
+    private static volatile int geometryEpoch;
+
+    private int epoch = -1;
+
+    private final int[] geometry = new int[6];
+
+    private int cury = -1;
+
+    private int curx = -1;
+
+    private int attrs;
+
+    private boolean attrsKnown;
+
+    private long elided;
+
+    private Printer printer;
+
+    /* also understood by curses4j_wgetkeys */
+    private static final int UNKNOWN_DELAY = Integer.MIN_VALUE;
+
+    private int delay = UNKNOWN_DELAY;
+
+    /* scroll region set by setscrreg, -1 while unknown */
+    private int regionTop = -1;
+
+    private int regionBottom = -1;
+
+    private int regionEpoch;
 
     static void initscr() {
         if (stdscr.peer.peer == 0) {
             stdscr.peer.peer = stdscr.peer.curses4j_initscr();
+            stdscr.attrsKnown = true;
+            stdscr.delay = -1;
         } else {
             throw new IllegalStateException();
         }
     }
 
     static Window newwin(int nlines, int ncols, int begy, int begx) {
-        long newwin = curses4j_newwin(nlines, ncols, begy, begx);
+        long newwin = SCREEN.curses4j_newwin(nlines, ncols, begy, begx);
         if (newwin <= ERR) {
             return null;
         }
         Window window = new Window();
         window.peer.peer = newwin;
+        window.attrsKnown = true;
+        window.delay = -1;
+        return window;
+    }
+
+    static Window newpad(int nlines, int ncols) {
+        long newpad = SCREEN.curses4j_newpad(nlines, ncols);
+        if (newpad <= ERR) {
+            return null;
+        }
+        Window window = new Window();
+        window.peer.peer = newpad;
+        window.attrsKnown = true;
+        window.delay = -1;
         return window;
     }
 
@@ -35,217 +102,833 @@ public class Window {
     }
 
     public int addch(int ch) {
+        if (batch != null) {
+            batch.addch(peer, ch);
+            cury = -1;
+            return OK;
+        }
+        cury = -1;
         return peer.curses4j_waddch(peer.peer, ch);
     }
 
     public int addstr(String str) {
+        sync();
+        cury = -1;
         return peer.curses4j_waddstr(peer.peer, str);
     }
 
+    /**
+     * Writes <code>len</code> UTF-16 chars from <code>str</code> through the
+     * wide-character api without creating a <code>String</code>.
+     */
+    public int addnstr(char[] str, int off, int len) {
+        return mvaddnstr(-1, -1, str, off, len);
+    }
+
     public int attr_on(int attrs) {
-        return peer.curses4j_wattr_on(peer.peer, attrs);
+        return attron(attrs);
     }
 
     public int attroff(int attrs) {
-        return peer.curses4j_wattroff(peer.peer, attrs);
+        int next;
+        if (ChType.PDCURSES) {
+            // only the color bits that are set in attrs are cleared
+            next = this.attrs & ~attrs & A_ATTRIBUTES;
+        } else {
+            next = this.attrs & ~(attrs & ~A_COLOR);
+            if ((attrs & A_COLOR) != 0) {
+                next &= ~A_COLOR;
+            }
+        }
+        return attr(OP_ATTROFF, attrs, next);
     }
 
     public int attron(int attrs) {
-        return peer.curses4j_wattron(peer.peer, attrs);
+        int on = ChType.PDCURSES ? attrs & A_ATTRIBUTES : attrs;
+        int next = this.attrs | on;
+        if ((on & A_COLOR) != 0) {
+            next = (this.attrs & ~A_COLOR) | on;
+        }
+        return attr(OP_ATTRON, attrs, next);
     }
 
     public int attrset(int attrs) {
-        return peer.curses4j_wattrset(peer.peer, attrs);
+        return attr(OP_ATTRSET, attrs, ChType.PDCURSES ? attrs & A_ATTRIBUTES : attrs);
     }
 
     public int bkgd(int ch) {
+        sync();
+        // ncurses swaps the old background attributes for the new ones
+        attrsKnown = false;
         return peer.curses4j_wbkgd(peer.peer, ch);
     }
 
     public int box(char verch, char horch) {
+        sync();
         return peer.curses4j_box(peer.peer, verch, horch);
     }
 
     public int clear() {
-        return stdscr.peer.curses4j_wclear(peer.peer);
+        sync();
+        return cursor(stdscr.peer.curses4j_wclear(peer.peer), 0, 0);
     }
 
     public Window derwin(int nlines, int ncols, int begy, int begx) {
+        sync();
         long subwin = peer.curses4j_derwin(peer.peer, nlines, ncols, begy, begx);
         if (subwin <= ERR) {
             return null;
         }
-        Window window = new Window();
-        window.peer.peer = subwin;
-        return window;
+        return derived(subwin);
     }
 
     public int getch() {
-        return peer.curses4j_wgetch(peer.peer);
+        sync();
+        cury = -1;
+        Object event = Jfr.inputWait();
+        int ch = peer.curses4j_wgetch(peer.peer);
+        Jfr.inputWait(event, "wgetch", peer.peer, ch);
+        if (ch == Curses.KEY_RESIZE) {
+            resized();
+        }
+        return ch;
+    }
+
+    /**
+     * Reads every key that is already waiting, up to the length of
+     * <code>dst</code>, in a single native call that does not block. The
+     * input delay of the window is restored afterwards.
+     * 
+     * @return number of keys read
+     */
+    public int readKeys(int[] dst) {
+        return readKeys(dst, 0, dst.length);
+    }
+
+    /**
+     * @see #readKeys(int[])
+     */
+    public int readKeys(int[] dst, int off, int len) {
+        checkBounds(dst.length, off, len);
+        sync();
+        cury = -1;
+        int n = peer.curses4j_wgetkeys(peer.peer, dst, off, len, delay);
+        for (int i = off; i < off + n; i++) {
+            if (dst[i] == Curses.KEY_RESIZE) {
+                resized();
+                break;
+            }
+        }
+        return n;
     }
 
     public int getmaxx() {
-        return stdscr.peer.curses4j_getmaxx(peer.peer);
+        return geometry()[MAXX];
     }
 
     public int getmaxy() {
-        return stdscr.peer.curses4j_getmaxy(peer.peer);
+        return geometry()[MAXY];
+    }
+
+    public int getbegx() {
+        return geometry()[BEGX];
     }
 
+    public int getbegy() {
+        return geometry()[BEGY];
+    }
+
+    /**
+     * Reads a line of up to <code>n</code> bytes. When the terminal is resized
+     * ncurses ends the read early and the text typed so far is returned.
+     *
+     * @return the text read, or <code>null</code> on error
+     */
     public String getnstr(int n) {
-        return peer.curses4j_wgetnstr(peer.peer, n);
+        sync();
+        cury = -1;
+        int[] result = { ERR };
+        Object event = Jfr.inputWait();
+        String str = peer.curses4j_wgetnstr(peer.peer, n, result);
+        Jfr.inputWait(event, "wgetnstr", peer.peer, str == null ? ERR : OK);
+        if (result[0] == Curses.KEY_RESIZE) {
+            resized();
+        }
+        return str;
     }
 
     public int getparx() {
-        return peer.curses4j_getparx(peer.peer);
+        return geometry()[PARX];
     }
 
     public int getpary() {
-        return peer.curses4j_getpary(peer.peer);
+        return geometry()[PARY];
     }
 
     public int move(int y, int x) {
-        return peer.curses4j_wmove(peer.peer, y, x);
+        if (cury >= 0 && cury == y && curx == x) {
+            elided++;
+            if (CHECK_CACHE) {
+                cursor();
+            }
+            return OK;
+        }
+        if (batch != null) {
+            batch.move(peer, y, x);
+            int[] geometry = geometry();
+            if (y >= 0 && y < geometry[MAXY] && x >= 0 && x < geometry[MAXX]) {
+                cury = y;
+                curx = x;
+            } else {
+                cury = -1;
+            }
+            return OK;
+        }
+        return cursor(peer.curses4j_wmove(peer.peer, y, x), y, x);
     }
 
     public int mvaddstr(int y, int x, String str) {
+        sync();
+        cury = -1;
         return peer.curses4j_mvwaddstr(peer.peer, y, x, str);
     }
 
+    /**
+     * @see #addnstr(char[], int, int)
+     */
+    public int mvaddnstr(int y, int x, char[] str, int off, int len) {
+        checkBounds(str.length, off, len);
+        sync();
+        cury = -1;
+        return peer.curses4j_mvwaddnwstr(peer.peer, y, x, str, off, len);
+    }
+
     public int mvdelch(int y, int x) {
-        return peer.curses4j_mvwdelch(peer.peer, y, x);
+        sync();
+        return cursor(peer.curses4j_mvwdelch(peer.peer, y, x), y, x);
     }
 
     public int mvinsch(int y, int x, char ch) {
-        return peer.curses4j_mvwinsch(peer.peer, y, x, ch);
+        sync();
+        return cursor(peer.curses4j_mvwinsch(peer.peer, y, x, ch), y, x);
     }
 
     public int nodelay(boolean bf) {
-        return peer.curses4j_nodelay(peer.peer, bf ? TRUE : FALSE);
+        sync();
+        int ret = peer.curses4j_nodelay(peer.peer, bf ? TRUE : FALSE);
+        delay = ret == OK ? (bf ? 0 : -1) : UNKNOWN_DELAY;
+        return ret;
+    }
+
+    /**
+     * Makes <code>getch</code> wait at most <code>delay</code> milliseconds
+     * for a key and return <code>ERR</code> if none arrived. A negative delay
+     * waits forever and 0 does not wait, like <code>nodelay</code>.
+     * Setting the delay that is already in effect is skipped.
+     */
+    public int timeout(int delay) {
+        if (delay < 0) {
+            delay = -1;
+        }
+        if (delay == this.delay) {
+            elided++;
+            return OK;
+        }
+        sync();
+        this.delay = delay;
+        return peer.curses4j_wtimeout(peer.peer, delay);
+    }
+
+    /**
+     * If <code>bf</code> is <code>true</code>, escape sequences of function
+     * keys are decoded without waiting for the rest of the sequence.
+     */
+    public int notimeout(boolean bf) {
+        sync();
+        return peer.curses4j_notimeout(peer.peer, bf ? TRUE : FALSE);
+    }
+
+    /**
+     * @return <code>true</code> if the screen position <code>y, x</code> is
+     *         inside this window, for example a {@link MouseEvent}
+     */
+    public boolean enclose(int y, int x) {
+        sync();
+        return peer.curses4j_wenclose(peer.peer, y, x) == TRUE;
+    }
+
+    /**
+     * Converts the <code>{y, x}</code> pair in place between screen and
+     * window relative coordinates.
+     * 
+     * @return <code>false</code> if the position is outside this window, in
+     *         which case <code>yx</code> is unchanged
+     */
+    public boolean mouse_trafo(int[] yx, boolean toScreen) {
+        checkBounds(yx.length, 0, 2);
+        sync();
+        return peer.curses4j_wmouse_trafo(peer.peer, yx, toScreen ? TRUE : FALSE) == TRUE;
     }
 
     public int printw(String str, Object... args) {
-        return peer.curses4j_wprintw(peer.peer, format(str, args));
+        return printer().format(str, args).print();
     }
 
+    /**
+     * Updates the terminal with this window. While a {@link Frame} is active
+     * the window is only copied to the virtual screen and the terminal is
+     * updated when the frame is flushed.
+     */
     public int refresh() {
-        return peer.curses4j_wrefresh(peer.peer);
+        sync();
+        Frame frame = Frame.active;
+        if (frame != null) {
+            return frame.refresh(this);
+        }
+        Object event = Jfr.refresh();
+        long start = RenderMetrics.start();
+        int ret = peer.curses4j_wrefresh(peer.peer);
+        RenderMetrics.end(RenderMetrics.WREFRESH, start);
+        Jfr.refresh(event, "wrefresh", peer.peer);
+        return ret;
+    }
+
+    /**
+     * Copies this window to the virtual screen without updating the terminal,
+     * see {@link Curses#doupdate()}.
+     */
+    public int noutrefresh() {
+        sync();
+        long start = RenderMetrics.start();
+        int ret = peer.curses4j_wnoutrefresh(peer.peer);
+        RenderMetrics.end(RenderMetrics.WNOUTREFRESH, start);
+        return ret;
     }
 
     public int scrollok(boolean bf) {
+        sync();
         return peer.curses4j_scrollok(peer.peer, bf ? TRUE : FALSE);
     }
 
+    /**
+     * Lets curses use the terminal's insert and delete line capabilities to
+     * update this window, which is much cheaper for scrolling content.
+     */
+    public int idlok(boolean bf) {
+        sync();
+        return peer.curses4j_idlok(peer.peer, bf ? TRUE : FALSE);
+    }
+
+    /**
+     * Lets curses use the terminal's insert and delete character
+     * capabilities to update this window. Enabled by default.
+     */
+    public int idcok(boolean bf) {
+        sync();
+        return peer.curses4j_idcok(peer.peer, bf ? TRUE : FALSE);
+    }
+
     public Window subwin(int nlines, int ncols, int begy, int begx) {
+        sync();
         long subwin = peer.curses4j_subwin(peer.peer, nlines, ncols, begy, begx);
         if (subwin <= ERR) {
             return null;
         }
-        Window window = new Window();
-        window.peer.peer = subwin;
-        return window;
+        return derived(subwin);
     }
 
     public int touchwin() {
+        sync();
         return peer.curses4j_touchwin(peer.peer);
     }
 
+    /**
+     * Marks <code>count</code> lines starting at <code>start</code> as
+     * changed, so that the next refresh redraws only them.
+     */
+    public int touchline(int start, int count) {
+        return touchln(start, count, true);
+    }
+
+    /**
+     * Marks <code>n</code> lines starting at <code>y</code> as changed or, if
+     * <code>changed</code> is <code>false</code>, as unchanged.
+     */
+    public int touchln(int y, int n, boolean changed) {
+        sync();
+        return peer.curses4j_wtouchln(peer.peer, y, n, changed ? TRUE : FALSE);
+    }
+
+    public int untouchwin() {
+        sync();
+        return peer.curses4j_untouchwin(peer.peer);
+    }
+
+    public boolean is_linetouched(int line) {
+        sync();
+        return peer.curses4j_is_linetouched(peer.peer, line) == TRUE;
+    }
+
+    public boolean is_wintouched() {
+        sync();
+        return peer.curses4j_is_wintouched(peer.peer) == TRUE;
+    }
+
+    /**
+     * Touches the lines of this window that intersect the screen rectangle of
+     * <code>nlines</code> by <code>ncols</code> cells at
+     * <code>begy, begx</code>. Lines beside the rectangle are left untouched,
+     * so the next refresh repaints only what the rectangle covered.
+     */
+    public int touchRect(int begy, int begx, int nlines, int ncols) {
+        int[] geometry = geometry();
+        int top = Math.max(begy, geometry[BEGY]);
+        int bottom = Math.min(begy + nlines, geometry[BEGY] + geometry[MAXY]);
+        int left = Math.max(begx, geometry[BEGX]);
+        int right = Math.min(begx + ncols, geometry[BEGX] + geometry[MAXX]);
+        if (top >= bottom || left >= right) {
+            return OK;
+        }
+        return touchln(top - geometry[BEGY], bottom - top, true);
+    }
+
+    /**
+     * Touches the lines of this window covered by <code>other</code>, for
+     * example after a popup over this window was closed.
+     * 
+     * @see #touchRect(int, int, int, int)
+     */
+    public int touchOverlap(Window other) {
+        return touchRect(other.getbegy(), other.getbegx(), other.getmaxy(), other.getmaxx());
+    }
+
     public int mvaddch(int y, int x, char ch) {
-        return peer.curses4j_mvwaddch(peer.peer, y, x, (int) ch);
+        return mvaddch(y, x, (int) ch);
     }
 
     public int mvaddch(int y, int x, int ch) {
+        if (batch != null) {
+            batch.mvaddch(peer, y, x, ch);
+            cury = -1;
+            return OK;
+        }
+        cury = -1;
         return peer.curses4j_mvwaddch(peer.peer, y, x, ch);
     }
 
     public int getcury() {
-        return peer.curses4j_getcury(peer.peer);
+        cursor();
+        return cury;
     }
 
     public int getcurx() {
-        return peer.curses4j_getcurx(peer.peer);
+        cursor();
+        return curx;
     }
 
     public int insertln() {
+        sync();
         return peer.curses4j_winsertln(peer.peer);
     }
 
     public int insch(int ch) {
+        sync();
         return peer.curses4j_winsch(peer.peer, ch);
     }
 
     public int insch(char ch) {
+        sync();
         return peer.curses4j_winsch(peer.peer, (int) ch);
     }
 
     public int insstr(String str) {
+        sync();
         return peer.curses4j_winsstr(peer.peer, str);
     }
 
     public int deleteln() {
+        sync();
         return peer.curses4j_wdeleteln(peer.peer);
     }
 
     public int delch() {
+        sync();
         return peer.curses4j_wdelch(peer.peer);
     }
 
     public int insdelln(int n) {
+        sync();
         return peer.curses4j_winsdelln(peer.peer, n);
     }
 
     public int clrtoeol() {
+        sync();
         return peer.curses4j_wclrtoeol(peer.peer);
     }
 
     public int clrtobot() {
+        sync();
         return peer.curses4j_wclrtobot(peer.peer);
     }
 
     public int keypad(boolean bf) {
+        sync();
         return peer.curses4j_keypad(peer.peer, bf ? TRUE : FALSE);
     }
 
     public int delwin() {
+        sync();
         return peer.curses4j_delwin(peer.peer);
     }
 
     public int border(int ls, int rs, int ts, int bs, int tl, int tr, int bl, int br) {
+        sync();
         return peer.curses4j_wborder(peer.peer, ls, rs, ts, bs, tl, tr, bl, br);
     }
 
     public int box(int verch, int horch) {
+        sync();
         return peer.curses4j_box(peer.peer, verch, horch);
     }
 
     public int mvwin(int y, int x) {
+        sync();
+        epoch = -1;
         return peer.curses4j_mvwin(peer.peer, y, x);
     }
 
     public int mvprint(int y, int x, String str, Object... args) {
-        return peer.curses4j_mvwprintw(peer.peer, y, x, format(str, args));
+        return printer().format(str, args).mvprint(y, x);
+    }
+
+    /**
+     * Returns the reusable, reset {@link Printer} of this window.
+     */
+    public Printer printer() {
+        if (printer == null) {
+            printer = new Printer(this);
+        }
+        return printer.reset();
     }
 
     public int scroll() {
+        sync();
         return peer.curses4j_scroll(peer.peer);
     }
 
     public int scrl(int n) {
+        sync();
         return peer.curses4j_wscrl(peer.peer, n);
     }
 
+    /**
+     * Sets the scroll region. Setting the region that is already in effect is
+     * skipped, until the terminal is resized.
+     */
     public int setscrreg(int top, int bot) {
-        return peer.curses4j_wsetscrreg(peer.peer, top, bot);
+        if (top == regionTop && bot == regionBottom && regionEpoch == geometryEpoch) {
+            elided++;
+            return OK;
+        }
+        sync();
+        int ret = peer.curses4j_wsetscrreg(peer.peer, top, bot);
+        if (ret == OK) {
+            regionTop = top;
+            regionBottom = bot;
+            regionEpoch = geometryEpoch;
+        } else {
+            regionTop = -1;
+        }
+        return ret;
     }
 
     public int prefresh(int py, int px, int sy1, int sx1, int sy2, int sx2) {
-        return peer.curses4j_prefresh(peer.peer, py, px, sy1, sx1, sy2, sx2);
+        sync();
+        Frame frame = Frame.active;
+        if (frame != null) {
+            return frame.prefresh(this, py, px, sy1, sx1, sy2, sx2);
+        }
+        Object event = Jfr.refresh();
+        long start = RenderMetrics.start();
+        int ret = peer.curses4j_prefresh(peer.peer, py, px, sy1, sx1, sy2, sx2);
+        RenderMetrics.end(RenderMetrics.PREFRESH, start);
+        Jfr.refresh(event, "prefresh", peer.peer);
+        return ret;
+    }
+
+    public int pnoutrefresh(int py, int px, int sy1, int sx1, int sy2, int sx2) {
+        sync();
+        long start = RenderMetrics.start();
+        int ret = peer.curses4j_pnoutrefresh(peer.peer, py, px, sy1, sx1, sy2, sx2);
+        RenderMetrics.end(RenderMetrics.PNOUTREFRESH, start);
+        return ret;
     }
 
     public Window subpad(int nlines, int ncols, int begy, int begx) {
+        sync();
         long subpad = peer.curses4j_subpad(peer.peer, nlines, ncols, begy, begx);
+        return derived(subpad);
+    }
+
+    /**
+     * Copies <code>len</code> pre-attributed cells to the current cursor
+     * position in a single native call. The cursor is not advanced and the
+     * row is truncated at the right edge of the window.
+     */
+    public int addchnstr(int[] cells, int off, int len) {
+        return mvaddchnstr(-1, -1, cells, off, len);
+    }
+
+    /**
+     * Copies the cells between the buffer's position and limit to the current
+     * cursor position. The buffer's position is not changed.
+     */
+    public int addchnstr(IntBuffer cells) {
+        return mvaddchnstr(-1, -1, cells);
+    }
+
+    public int mvaddchnstr(int y, int x, int[] cells, int off, int len) {
+        checkBounds(cells.length, off, len);
+        sync();
+        return cells(peer.curses4j_mvwaddchnstr(peer.peer, y, x, cells, off, len), y, x);
+    }
+
+    /**
+     * @see #addchnstr(IntBuffer)
+     */
+    public int mvaddchnstr(int y, int x, IntBuffer cells) {
+        sync();
+        if (isDirect(cells)) {
+            return cells(peer.curses4j_mvwaddchnstr_direct(peer.peer, y, x, cells, cells.position(), cells.remaining()), y, x);
+        } else {
+            int off = cells.arrayOffset() + cells.position();
+            return cells(peer.curses4j_mvwaddchnstr(peer.peer, y, x, cells.array(), off, cells.remaining()), y, x);
+        }
+    }
+
+    public int inch() {
+        sync();
+        return peer.curses4j_winch(peer.peer);
+    }
+
+    public int mvinch(int y, int x) {
+        sync();
+        cury = -1;
+        return peer.curses4j_mvwinch(peer.peer, y, x);
+    }
+
+    /**
+     * Reads the cells of row <code>y</code> starting at column <code>x</code>
+     * into <code>dst</code> in a single native call. The cursor is not moved.
+     * 
+     * @return number of cells read, or <code>ERR</code>
+     */
+    public int readCells(int y, int x, int[] dst) {
+        return readCells(y, x, dst, 0, dst.length);
+    }
+
+    /**
+     * @see #readCells(int, int, int[])
+     */
+    public int readCells(int y, int x, int[] dst, int off, int len) {
+        checkBounds(dst.length, off, len);
+        if (y < 0) {
+            return ERR;
+        }
+        sync();
+        return peer.curses4j_mvwinchnstr(peer.peer, y, x, dst, off, len);
+    }
+
+    /**
+     * Takes a row-major snapshot of the whole window into the buffer, starting
+     * at its position, in a single native call. The buffer must have room for
+     * <code>getmaxy() * getmaxx()</code> cells; its position is not changed.
+     * 
+     * @return number of cells read, or <code>ERR</code>
+     */
+    public int readCells(IntBuffer dst) {
+        sync();
+        if (isDirect(dst)) {
+            return peer.curses4j_mvwinchnstr_direct(peer.peer, -1, -1, dst, dst.position(), dst.remaining());
+        } else {
+            int off = dst.arrayOffset() + dst.position();
+            return peer.curses4j_mvwinchnstr(peer.peer, -1, -1, dst.array(), off, dst.remaining());
+        }
+    }
+
+    /**
+     * Enables or disables batch mode.
+     * 
+     * While batch mode is on, <code>addch</code>, <code>mvaddch</code>,
+     * <code>move</code> and the <code>attr*</code> family are encoded into an
+     * off-heap command stream instead of calling into native code one by one.
+     * The stream is replayed in a single native call by {@link #flushBatch()},
+     * by {@link #refresh()} and before any other operation on this window.
+     * Batched calls always return <code>OK</code>; replay errors, including
+     * those of automatic replays, are reported by the next
+     * {@link #flushBatch()}.
+     */
+    public int setBatch(boolean bf) {
+        if (bf) {
+            if (batch == null) {
+                batch = new CommandBuffer();
+            }
+            return OK;
+        }
+        int ret = flushBatch();
+        batch = null;
+        return ret;
+    }
+
+    public boolean isBatch() {
+        return batch != null;
+    }
+
+    /**
+     * Replays all pending batched commands.
+     * 
+     * @return <code>ERR</code> if any of the commands replayed since the last
+     *         call failed
+     */
+    public int flushBatch() {
+        return batch == null ? OK : batch.flush(peer);
+    }
+
+    /**
+     * @return number of <code>attr*</code>, <code>move</code>,
+     *         <code>timeout</code> and <code>setscrreg</code> calls that were
+     *         skipped because they would not have changed the window
+     */
+    public long getElidedCalls() {
+        return elided;
+    }
+
+    /**
+     * Wraps a window created from this one, which starts with the same
+     * attributes in both ncurses and PDCurses.
+     */
+    Window derived(long peer) {
         Window window = new Window();
-        window.peer.peer = subpad;
+        window.peer.peer = peer;
+        window.attrs = attrs;
+        window.attrsKnown = attrsKnown;
         return window;
     }
+
+    private int attr(int op, int attrs, int next) {
+        if (attrsKnown && next == this.attrs) {
+            elided++;
+            if (CHECK_CACHE) {
+                checkAttrs();
+            }
+            return OK;
+        }
+        int ret;
+        if (batch != null) {
+            batch.attr(peer, op, attrs);
+            ret = OK;
+        } else if (op == OP_ATTRON) {
+            ret = peer.curses4j_wattron(peer.peer, attrs);
+        } else if (op == OP_ATTROFF) {
+            ret = peer.curses4j_wattroff(peer.peer, attrs);
+        } else {
+            ret = peer.curses4j_wattrset(peer.peer, attrs);
+        }
+        if (ret == OK && (attrsKnown || op == OP_ATTRSET)) {
+            this.attrs = next;
+            attrsKnown = true;
+        } else {
+            attrsKnown = false;
+        }
+        return ret;
+    }
+
+    private void checkAttrs() {
+        sync();
+        int actual = peer.curses4j_getattrs(peer.peer);
+        if (actual != attrs) {
+            throw new IllegalStateException("stale attributes, cached: " + Integer.toHexString(attrs) + ", actual: "
+                    + Integer.toHexString(actual));
+        }
+    }
+
+    static void resized() {
+        geometryEpoch++;
+    }
+
+    private int[] geometry() {
+        if (epoch != geometryEpoch) {
+            peer.curses4j_getgeometry(peer.peer, geometry);
+            epoch = geometryEpoch;
+        } else if (CHECK_CACHE) {
+            int[] actual = new int[geometry.length];
+            peer.curses4j_getgeometry(peer.peer, actual);
+            if (!Arrays.equals(geometry, actual)) {
+                throw new IllegalStateException("stale geometry, cached: " + Arrays.toString(geometry) + ", actual: "
+                        + Arrays.toString(actual));
+            }
+        }
+        return geometry;
+    }
+
+    private void cursor() {
+        if (cury < 0) {
+            sync();
+            long yx = peer.curses4j_getyx(peer.peer);
+            cury = (int) (yx >> 32);
+            curx = (int) yx;
+        } else if (CHECK_CACHE) {
+            sync();
+            long yx = peer.curses4j_getyx(peer.peer);
+            if (cury != (int) (yx >> 32) || curx != (int) yx) {
+                throw new IllegalStateException("stale cursor, cached: " + cury + "," + curx + ", actual: "
+                        + (int) (yx >> 32) + "," + (int) yx);
+            }
+        }
+    }
+
+    /**
+     * Records the cursor position set by a successful call.
+     */
+    private int cursor(int ret, int y, int x) {
+        if (ret == OK) {
+            cury = y;
+            curx = x;
+        } else {
+            cury = -1;
+        }
+        return ret;
+    }
+
+    /**
+     * Row blits leave the cursor where they started.
+     */
+    private int cells(int ret, int y, int x) {
+        return y < 0 ? ret : cursor(ret, y, x);
+    }
+
+    static void checkBounds(int length, int off, int len) {
+        if (off < 0 || len < 0 || off > length - len) {
+            throw new IndexOutOfBoundsException("off: " + off + ", len: " + len + ", length: " + length);
+        }
+    }
+
+    static boolean isDirect(IntBuffer cells) {
+        if (cells.isDirect()) {
+            if (cells.order() != nativeOrder()) {
+                throw new IllegalArgumentException("cells must be in native byte order");
+            }
+            return true;
+        } else if (cells.hasArray()) {
+            return false;
+        } else {
+            throw new IllegalArgumentException("cells must be a direct or an array backed buffer");
+        }
+    }
+
+    void sync() {
+        if (batch != null) {
+            batch.sync(peer);
+        }
+    }
 }
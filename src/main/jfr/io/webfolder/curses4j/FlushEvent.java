@@ -0,0 +1,42 @@
+package io.webfolder.curses4j;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.webfolder.curses4j.Flush")
+@Label("Curses Flush")
+@Category("curses4j")
+@Description("Flush of buffered drawing to curses")
+final class FlushEvent extends jdk.jfr.Event {
+
+    static final FlushEvent PROBE = new FlushEvent();
+
+    @Label("Source")
+    @Description("batch, screen or frame")
+    String source;
+
+    @Label("Count")
+    @Description("Commands replayed by a batch, cells written by a screen buffer or cells copied by a frame")
+    int count;
+
+    static Object start() {
+        if (!PROBE.isEnabled()) {
+            return null;
+        }
+        FlushEvent event = new FlushEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commit(Object event, String source, int count) {
+        FlushEvent flush = (FlushEvent) event;
+        flush.end();
+        if (flush.shouldCommit()) {
+            flush.source = source;
+            flush.count = count;
+            flush.commit();
+        }
+    }
+}
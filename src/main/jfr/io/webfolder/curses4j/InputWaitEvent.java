@@ -0,0 +1,45 @@
+package io.webfolder.curses4j;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.webfolder.curses4j.InputWait")
+@Label("Curses Input Wait")
+@Category("curses4j")
+@Description("Time spent waiting in a blocking read of the keyboard")
+final class InputWaitEvent extends jdk.jfr.Event {
+
+    static final InputWaitEvent PROBE = new InputWaitEvent();
+
+    @Label("Function")
+    String function;
+
+    @Label("Window")
+    long window;
+
+    @Label("Key")
+    @Description("Key read by wgetch, OK for wgetnstr; waits that time out are not recorded")
+    int key;
+
+    static Object start() {
+        if (!PROBE.isEnabled()) {
+            return null;
+        }
+        InputWaitEvent event = new InputWaitEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commit(Object event, String function, long window, int key) {
+        InputWaitEvent wait = (InputWaitEvent) event;
+        wait.end();
+        if (wait.shouldCommit()) {
+            wait.function = function;
+            wait.window = window;
+            wait.key = key;
+            wait.commit();
+        }
+    }
+}
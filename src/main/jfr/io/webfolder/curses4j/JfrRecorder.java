@@ -0,0 +1,38 @@
+package io.webfolder.curses4j;
+
+/**
+ * {@link Jfr.Recorder} backed by the curses4j JFR event classes. This source
+ * set is only compiled on JDKs that have <code>jdk.jfr</code>.
+ */
+final class JfrRecorder implements Jfr.Recorder {
+
+    @Override
+    public Object refresh() {
+        return RefreshEvent.start();
+    }
+
+    @Override
+    public void refresh(Object event, String function, long window) {
+        RefreshEvent.commit(event, function, window);
+    }
+
+    @Override
+    public Object inputWait() {
+        return InputWaitEvent.start();
+    }
+
+    @Override
+    public void inputWait(Object event, String function, long window, int key) {
+        InputWaitEvent.commit(event, function, window, key);
+    }
+
+    @Override
+    public Object flush() {
+        return FlushEvent.start();
+    }
+
+    @Override
+    public void flush(Object event, String source, int count) {
+        FlushEvent.commit(event, source, count);
+    }
+}
@@ -0,0 +1,41 @@
+package io.webfolder.curses4j;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("io.webfolder.curses4j.Refresh")
+@Label("Curses Refresh")
+@Category("curses4j")
+@Description("Physical update of the terminal")
+final class RefreshEvent extends jdk.jfr.Event {
+
+    static final RefreshEvent PROBE = new RefreshEvent();
+
+    @Label("Function")
+    String function;
+
+    @Label("Window")
+    @Description("Address of the curses window, 0 for doupdate")
+    long window;
+
+    static Object start() {
+        if (!PROBE.isEnabled()) {
+            return null;
+        }
+        RefreshEvent event = new RefreshEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commit(Object event, String function, long window) {
+        RefreshEvent refresh = (RefreshEvent) event;
+        refresh.end();
+        if (refresh.shouldCommit()) {
+            refresh.function = function;
+            refresh.window = window;
+            refresh.commit();
+        }
+    }
+}
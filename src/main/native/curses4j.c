@@ -1,15 +1,95 @@
 #include "stdlib.h"
+#include <limits.h>
+#include <locale.h>
+#include <wchar.h>
 
 #include <jni.h>
+
+#if !defined(_WIN32)
+ #include <errno.h>
+ #include <poll.h>
+ #include <unistd.h>
+ #define NCURSES_WIDECHAR 1
+#else
+ /* ncurses compatible getmouse and mouse masks in PDCurses */
+ #define NCURSES_MOUSE_VERSION 2
+#endif
+
 #include "curses.h"
 
 static JavaVM *jvm;
 
 #define PDC_RGB 1
 
-#if !defined(PDC_ACS)
- #define PDC_ACS(w) ((chtype) w | A_ALTCHARSET)
-#endif
+/* batch opcodes, keep in sync with CommandBuffer.java */
+#define CURSES4J_OP_ADDCH    1
+#define CURSES4J_OP_MVADDCH  2
+#define CURSES4J_OP_MOVE     3
+#define CURSES4J_OP_ATTRON   4
+#define CURSES4J_OP_ATTROFF  5
+#define CURSES4J_OP_ATTRSET  6
+
+#define CURSES4J_WSTR_LEN 256
+
+/*
+ * Writes len UTF-16 code units through the wide-character api. The text is
+ * always copied into a NUL terminated buffer, PDCurses scans wins_nwstr and
+ * waddnwstr up to the NUL whatever the count, and ncurses takes a count
+ * below 1 as the whole string. Where wchar_t is 32 bits surrogate pairs are
+ * combined. A negative y writes at the current cursor position.
+ */
+static jint curses4j_put_wstr(WINDOW* win, jint y, jint x, const jchar *str, jint len, int insert) {
+  wchar_t buf[CURSES4J_WSTR_LEN + 1];
+  wchar_t *wstr = buf;
+  jint ret = ERR;
+  jint n = 0;
+  jint i = 0;
+  if (y >= 0 && wmove(win, y, x) == ERR) {
+    return ERR;
+  }
+  if (len == 0) {
+    return OK;
+  }
+  if (len > CURSES4J_WSTR_LEN) {
+    wstr = malloc(sizeof(wchar_t) * (len + 1));
+    if (wstr == NULL) {
+      return ERR;
+    }
+  }
+  for (i = 0; i < len; i++) {
+    jchar c = str[i];
+    if (sizeof(wchar_t) != sizeof(jchar) && c >= 0xD800 && c <= 0xDBFF && i + 1 < len
+        && str[i + 1] >= 0xDC00 && str[i + 1] <= 0xDFFF) {
+      wstr[n++] = (wchar_t) (0x10000 + ((c - 0xD800) << 10) + (str[i + 1] - 0xDC00));
+      i++;
+    } else {
+      wstr[n++] = (wchar_t) c;
+    }
+  }
+  wstr[n] = 0;
+  ret = (jint) (insert ? wins_nwstr(win, wstr, n) : waddnwstr(win, wstr, n));
+  if (wstr != buf) {
+    free(wstr);
+  }
+  return ret;
+}
+
+static jint curses4j_put_jstring(JNIEnv *env, WINDOW* win, jint y, jint x, jstring str, int insert) {
+  const jchar *_str = NULL;
+  jint len = 0;
+  jint ret = ERR;
+  if (str == NULL) {
+    return ERR;
+  }
+  len = (*env)->GetStringLength(env, str);
+  _str = (*env)->GetStringCritical(env, str, NULL);
+  if (_str == NULL) {
+    return ERR;
+  }
+  ret = curses4j_put_wstr(win, y, x, _str, len, insert);
+  (*env)->ReleaseStringCritical(env, str, _str);
+  return ret;
+}
 
 #ifdef _WIN32
  #include <windows.h>
@@ -74,7 +154,10 @@ static JavaVM *jvm;
 #endif
 
 jlong curses4j_initscr(JNIEnv *env, jobject that) {
-  WINDOW* win = initscr();
+  WINDOW* win = NULL;
+  /* only the character type, the rest of the JVM keeps the C locale */
+  setlocale(LC_CTYPE, "");
+  win = initscr();
   jlong peer = (jlong) win;
   return peer;
 }
@@ -87,35 +170,31 @@ jint curses4j_init_pair(JNIEnv *env, jclass klass, jshort pair, jshort fg, jshor
   return (jint) init_pair(pair, fg, bg);
 }
 
-jint curses4j_wattr_on(JNIEnv *env, jobject that, jlong peer, jint attrs) {
-  WINDOW* win = *(WINDOW **) &peer;
-  return (jint) wattr_on(win, attrs, NULL);
-}
-
 jint curses4j_wrefresh(JNIEnv *env, jobject that, jlong peer) {
   WINDOW* win = *(WINDOW **) &peer;
   return (jint) wrefresh(win);
 }
 
-jint curses4j_wprintw(JNIEnv *env, jobject that, jlong peer, jstring str) {
-  const char *_str = str == NULL ? NULL : (char *) (*env)->GetStringUTFChars(env, str, NULL);
-  WINDOW* win = *(WINDOW **) &peer;
-  jint ret = (jint) wprintw(win, _str);
-  if (_str) {
-    (*env)->ReleaseStringUTFChars(env, str, _str);
-  }
-  return ret;
-}
-
-jstring curses4j_wgetnstr(JNIEnv *env, jobject that, jlong peer, jint n) {
+/*
+ * Stores the result of wgetnstr in result[0], ncurses ends the read early
+ * with KEY_RESIZE when the terminal is resized. The text typed so far is
+ * returned in both cases.
+ */
+jstring curses4j_wgetnstr(JNIEnv *env, jobject that, jlong peer, jint n, jintArray result) {
   char *_str = NULL;
   WINDOW* win = NULL;
+  jint ret = ERR;
   if (n <= 0) {
    return NULL;
   }
   win = *(WINDOW **) &peer;
   _str = malloc(sizeof(char) * (n + 1));
-  if (wgetnstr(win, _str, n) > ERR) {
+  if (_str == NULL) {
+   return NULL;
+  }
+  ret = (jint) wgetnstr(win, _str, n);
+  (*env)->SetIntArrayRegion(env, result, 0, 1, &ret);
+  if (ret != ERR) {
    jstring str = (*env)->NewStringUTF(env, _str);
    free(_str);
    return str;
@@ -139,45 +218,232 @@ jint curses4j_wgetch(JNIEnv *env, jobject that, jlong peer) {
   return wgetch(win);
 }
 
-jint curses4j_waddstr(JNIEnv *env, jobject that, jlong peer, jstring str) {
-  const char *_str = str == NULL ? NULL : (char *) (*env)->GetStringUTFChars(env, str, NULL);
+/* input delay of the window, as passed to wtimeout */
+static int curses4j_get_delay(WINDOW* win) {
+#ifdef NCURSES_VERSION
+  return wgetdelay(win);
+#else
+  return win->_nodelay ? 0 : (win->_delayms > 0 ? win->_delayms : -1);
+#endif
+}
+
+/*
+ * Reads the keys that are already waiting without blocking, then restores
+ * the input delay of the window. delay is the delay tracked by the caller,
+ * or INT_MIN to read it from the window. Returns the number of keys read.
+ */
+jint curses4j_wgetkeys(JNIEnv *env, jobject that, jlong peer, jintArray keys, jint off, jint len, jint delay) {
   WINDOW* win = *(WINDOW **) &peer;
-  jint ret = (jint) waddstr(win, _str);
-  if (_str) {
-    (*env)->ReleaseStringUTFChars(env, str, _str);
+  jint chunk[CURSES4J_WSTR_LEN];
+  jint count = 0;
+  jint n = 0;
+  int ch = ERR;
+  if (delay == INT_MIN) {
+    delay = curses4j_get_delay(win);
   }
-  return ret;
+  nodelay(win, TRUE);
+  while (count + n < len && (ch = wgetch(win)) != ERR) {
+    chunk[n++] = (jint) ch;
+    if (n == CURSES4J_WSTR_LEN) {
+      (*env)->SetIntArrayRegion(env, keys, off + count, n, chunk);
+      count += n;
+      n = 0;
+    }
+  }
+  if (n > 0) {
+    (*env)->SetIntArrayRegion(env, keys, off + count, n, chunk);
+    count += n;
+  }
+  wtimeout(win, delay);
+  return count;
+}
+
+/*
+ * Waits up to millis for keyboard input without calling curses, so the
+ * input thread does not hold the curses lock while it waits. Keys that
+ * curses already buffered or generates itself, such as KEY_RESIZE, are not
+ * seen. Returns TRUE when input is waiting, FALSE on timeout or a signal.
+ */
+jint curses4j_wait_input(JNIEnv *env, jclass klass, jint millis) {
+#ifdef _WIN32
+  DWORD ret = WaitForSingleObject(GetStdHandle(STD_INPUT_HANDLE), (DWORD) millis);
+  if (ret == WAIT_OBJECT_0) {
+    return TRUE;
+  }
+  return ret == WAIT_TIMEOUT ? FALSE : ERR;
+#else
+  struct pollfd fd;
+  int ret;
+  fd.fd = STDIN_FILENO;
+  fd.events = POLLIN;
+  fd.revents = 0;
+  ret = poll(&fd, 1, millis);
+  if (ret > 0) {
+    return TRUE;
+  }
+  return ret == 0 || errno == EINTR ? FALSE : ERR;
+#endif
+}
+
+jint curses4j_waddstr(JNIEnv *env, jobject that, jlong peer, jstring str) {
+  WINDOW* win = *(WINDOW **) &peer;
+  return curses4j_put_jstring(env, win, -1, -1, str, FALSE);
 }
 
 jint curses4j_mvwaddstr(JNIEnv *env, jobject that, jlong peer, jint y, jint x, jstring str) {
-  const char *_str = str == NULL ? NULL : (char *) (*env)->GetStringUTFChars(env, str, NULL);
   WINDOW* win = *(WINDOW **) &peer;
-  jint ret = (jint) mvwaddstr(win, y, x, _str);
-  if (_str) {
-    (*env)->ReleaseStringUTFChars(env, str, _str);
-  }
-  return ret;
+  return curses4j_put_jstring(env, win, y, x, str, FALSE);
 }
 
 jint curses4j_noecho(JNIEnv *env, jclass klass) {
   return noecho();
 }
 
+jint curses4j_cbreak(JNIEnv *env, jclass klass) {
+  return cbreak();
+}
+
+jint curses4j_nocbreak(JNIEnv *env, jclass klass) {
+  return nocbreak();
+}
+
+jint curses4j_raw(JNIEnv *env, jclass klass) {
+  return raw();
+}
+
+jint curses4j_noraw(JNIEnv *env, jclass klass) {
+  return noraw();
+}
+
+jint curses4j_halfdelay(JNIEnv *env, jclass klass, jint tenths) {
+  return halfdelay(tenths);
+}
+
+jint curses4j_set_escdelay(JNIEnv *env, jclass klass, jint ms) {
+#ifdef NCURSES_VERSION
+  return set_escdelay(ms);
+#else
+  return ERR;
+#endif
+}
+
 jint curses4j_nodelay(JNIEnv *env, jobject that, jlong peer, int bf) {
   WINDOW* win = *(WINDOW **) &peer;
   return nodelay(win, bf);
 }
 
+jint curses4j_wtimeout(JNIEnv *env, jobject that, jlong peer, jint delay) {
+  WINDOW* win = *(WINDOW **) &peer;
+  wtimeout(win, delay);
+  return OK;
+}
+
+jint curses4j_notimeout(JNIEnv *env, jobject that, jlong peer, jint bf) {
+  WINDOW* win = *(WINDOW **) &peer;
+  return notimeout(win, bf);
+}
+
+/* mouse version 1 has four buttons, BUTTON5 masks are reported as 0 */
+#if NCURSES_MOUSE_VERSION > 1 && defined(BUTTON5_PRESSED)
+ #define CURSES4J_BUTTON5(mask) (mask)
+#else
+ #define CURSES4J_BUTTON5(mask) 0
+#endif
+
+/* mouse masks of the curses library, keep in sync with MouseEvent.java */
+static const mmask_t curses4j_masks[] = {
+  BUTTON1_RELEASED, BUTTON1_PRESSED, BUTTON1_CLICKED, BUTTON1_DOUBLE_CLICKED, BUTTON1_TRIPLE_CLICKED,
+  BUTTON2_RELEASED, BUTTON2_PRESSED, BUTTON2_CLICKED, BUTTON2_DOUBLE_CLICKED, BUTTON2_TRIPLE_CLICKED,
+  BUTTON3_RELEASED, BUTTON3_PRESSED, BUTTON3_CLICKED, BUTTON3_DOUBLE_CLICKED, BUTTON3_TRIPLE_CLICKED,
+  BUTTON4_RELEASED, BUTTON4_PRESSED, BUTTON4_CLICKED, BUTTON4_DOUBLE_CLICKED, BUTTON4_TRIPLE_CLICKED,
+  CURSES4J_BUTTON5(BUTTON5_RELEASED), CURSES4J_BUTTON5(BUTTON5_PRESSED), CURSES4J_BUTTON5(BUTTON5_CLICKED),
+  CURSES4J_BUTTON5(BUTTON5_DOUBLE_CLICKED), CURSES4J_BUTTON5(BUTTON5_TRIPLE_CLICKED),
+  BUTTON_SHIFT, BUTTON_CTRL, BUTTON_ALT, REPORT_MOUSE_POSITION, ALL_MOUSE_EVENTS
+};
+
+jint curses4j_mouse_masks(JNIEnv *env, jclass klass, jlongArray masks) {
+  jint len = (jint) (sizeof(curses4j_masks) / sizeof(curses4j_masks[0]));
+  jint i = 0;
+  jlong values[sizeof(curses4j_masks) / sizeof(curses4j_masks[0])];
+  if ((*env)->GetArrayLength(env, masks) < len) {
+    return ERR;
+  }
+  for (i = 0; i < len; i++) {
+    values[i] = (jlong) curses4j_masks[i];
+  }
+  (*env)->SetLongArrayRegion(env, masks, 0, len, values);
+  return len;
+}
+
+jlong curses4j_mousemask(JNIEnv *env, jclass klass, jlong mask) {
+  return (jlong) mousemask((mmask_t) mask, NULL);
+}
+
+jint curses4j_mouseinterval(JNIEnv *env, jclass klass, jint interval) {
+  return mouseinterval(interval);
+}
+
+/* fills id, x, y, z and returns bstate, or -1 if no event is queued */
+jlong curses4j_getmouse(JNIEnv *env, jclass klass, jintArray event) {
+  MEVENT mevent;
+  jint fields[4];
+  if (getmouse(&mevent) != OK) {
+    return -1;
+  }
+  fields[0] = mevent.id;
+  fields[1] = mevent.x;
+  fields[2] = mevent.y;
+  fields[3] = mevent.z;
+  (*env)->SetIntArrayRegion(env, event, 0, 4, fields);
+  return (jlong) mevent.bstate;
+}
+
+jint curses4j_ungetmouse(JNIEnv *env, jclass klass, jint id, jint x, jint y, jint z, jlong bstate) {
+  MEVENT mevent;
+  mevent.id = (short) id;
+  mevent.x = x;
+  mevent.y = y;
+  mevent.z = z;
+  mevent.bstate = (mmask_t) bstate;
+  return ungetmouse(&mevent);
+}
+
+jint curses4j_wenclose(JNIEnv *env, jobject that, jlong peer, jint y, jint x) {
+  WINDOW* win = *(WINDOW **) &peer;
+  return wenclose(win, y, x);
+}
+
+jint curses4j_wmouse_trafo(JNIEnv *env, jobject that, jlong peer, jintArray yx, jint toScreen) {
+  WINDOW* win = *(WINDOW **) &peer;
+  jint coords[2];
+  int y = 0;
+  int x = 0;
+  jint ret = FALSE;
+  (*env)->GetIntArrayRegion(env, yx, 0, 2, coords);
+  if ((*env)->ExceptionCheck(env)) {
+    return FALSE;
+  }
+  y = coords[0];
+  x = coords[1];
+  ret = wmouse_trafo(win, &y, &x, toScreen);
+  if (ret) {
+    coords[0] = y;
+    coords[1] = x;
+    (*env)->SetIntArrayRegion(env, yx, 0, 2, coords);
+  }
+  return ret;
+}
+
 jint curses4j_napms(JNIEnv *env, jclass klass, jint delay) {
   return napms(delay);
 }
 
-jint curses4j_mvwinsch(JNIEnv *env, jobject that, jint peer, jint y, jint x, jchar ch) {
+jint curses4j_mvwinsch(JNIEnv *env, jobject that, jlong peer, jint y, jint x, jchar ch) {
   WINDOW* win = *(WINDOW **) &peer;
   return mvwinsch(win, y, x, ch);
 }
 
-jint curses4j_mvwdelch(JNIEnv *env, jobject that, jint peer, jint y, jint x) {
+jint curses4j_mvwdelch(JNIEnv *env, jobject that, jlong peer, jint y, jint x) {
   WINDOW* win = *(WINDOW **) &peer;
   return mvwdelch(win, y, x);
 }
@@ -193,17 +459,7 @@ jstring curses4j_unctrl(JNIEnv *env, jclass klass, jint c) {
   }
 }
 
-jint curses4j_getmaxx(JNIEnv *env, jobject that, jint peer) {
-  WINDOW* win = *(WINDOW **) &peer;
-  return getmaxx(win);
-}
-
-jint curses4j_getmaxy(JNIEnv *env, jobject that, jint peer) {
-  WINDOW* win = *(WINDOW **) &peer;
-  return getmaxy(win);
-}
-
-jint curses4j_wclear(JNIEnv *env, jobject that, jint peer) {
+jint curses4j_wclear(JNIEnv *env, jobject that, jlong peer) {
   WINDOW* win = *(WINDOW **) &peer;
   return wclear(win);
 }
@@ -221,16 +477,6 @@ jlong curses4j_newwin(JNIEnv *env, jclass klass, jint nlines, jint ncols, jint b
   return (jlong) win;
 }
 
-jint curses4j_getpary(JNIEnv *env, jobject that, jlong peer) {
-  WINDOW* win = *(WINDOW **) &peer;
-  return getpary(win);
-}
-
-jint curses4j_getparx(JNIEnv *env, jobject that, jlong peer) {
-  WINDOW* win = *(WINDOW **) &peer;
-  return getparx(win);
-}
-
 jint curses4j_wbkgd(JNIEnv *env, jobject that, jlong peer, jlong ch) {
   WINDOW* win = *(WINDOW **) &peer;
   return wbkgd(win, ch);
@@ -247,6 +493,26 @@ jint curses4j_touchwin(JNIEnv *env, jobject that, jlong peer) {
   return touchwin(win);
 }
 
+jint curses4j_wtouchln(JNIEnv *env, jobject that, jlong peer, jint y, jint n, jint changed) {
+  WINDOW* win = *(WINDOW **) &peer;
+  return wtouchln(win, y, n, changed);
+}
+
+jint curses4j_is_linetouched(JNIEnv *env, jobject that, jlong peer, jint line) {
+  WINDOW* win = *(WINDOW **) &peer;
+  return is_linetouched(win, line);
+}
+
+jint curses4j_is_wintouched(JNIEnv *env, jobject that, jlong peer) {
+  WINDOW* win = *(WINDOW **) &peer;
+  return is_wintouched(win);
+}
+
+jint curses4j_untouchwin(JNIEnv *env, jobject that, jlong peer) {
+  WINDOW* win = *(WINDOW **) &peer;
+  return untouchwin(win);
+}
+
 jlong curses4j_derwin(JNIEnv *env, jobject that, jlong peer, jint nlines, jint ncols, jint begy, jint begx) {
   WINDOW* win = *(WINDOW **) &peer;
   WINDOW* sub = derwin(win, nlines, ncols, begy, begx);
@@ -258,6 +524,17 @@ jint curses4j_scrollok(JNIEnv *env, jobject that, jlong peer, int bf) {
   return (jint) scrollok(win, bf);
 }
 
+jint curses4j_idlok(JNIEnv *env, jobject that, jlong peer, jint bf) {
+  WINDOW* win = *(WINDOW **) &peer;
+  return (jint) idlok(win, bf);
+}
+
+jint curses4j_idcok(JNIEnv *env, jobject that, jlong peer, jint bf) {
+  WINDOW* win = *(WINDOW **) &peer;
+  idcok(win, bf);
+  return OK;
+}
+
 jint curses4j_wmove(JNIEnv *env, jobject that, jlong peer, jint y, jint x) {
   WINDOW* win = *(WINDOW **) &peer;
   return (jint) wmove(win, y, x);
@@ -306,33 +583,11 @@ jint curses4j_color_pairs(JNIEnv *env, jclass klass) {
   return (jint) COLOR_PAIRS;
 }
 
-jint curses4j_color_pair(JNIEnv *env, jclass klass, jint n) {
-  return (jint) COLOR_PAIR(n);
-}
-
-jint curses4j_pair_number(JNIEnv *env, jclass klass, jint n) {
-  return (jint) PAIR_NUMBER(n);
-}
-
-jint curses4j_pdc_acs(JNIEnv *env, jclass klass, jint w) {
-  return PDC_ACS(w);
-}
-
 jint curses4j_mvwaddch(JNIEnv *env, jobject that, jlong peer, jint y, jint x, jint ch) {
   WINDOW* win = *(WINDOW **) &peer;
   return mvwaddch(win, y, x, ch);
 }
 
-jint curses4j_getcury(JNIEnv *env, jobject that, jlong peer) {
-  WINDOW* win = *(WINDOW **) &peer;
-  return (jint) getcury(win);
-}
-
-jint curses4j_getcurx(JNIEnv *env, jobject that, jlong peer) {
-  WINDOW* win = *(WINDOW **) &peer;
-  return (jint) getcurx(win);
-}
-
 jint curses4j_lines(JNIEnv *env, jclass klass) {
   return (jint) LINES;
 }
@@ -352,13 +607,8 @@ jint curses4j_winsch(JNIEnv *env, jobject that, jlong peer, jint ch) {
 }
 
 jint curses4j_winsstr(JNIEnv *env, jobject that, jlong peer, jstring str) {
-  const char *_str = str == NULL ? NULL : (char *) (*env)->GetStringUTFChars(env, str, NULL);
   WINDOW* win = *(WINDOW **) &peer;
-  jint ret = (jint) winsstr(win, _str);
-  if (_str) {
-    (*env)->ReleaseStringUTFChars(env, str, _str);
-  }
-  return ret;
+  return curses4j_put_jstring(env, win, -1, -1, str, TRUE);
 }
 
 jint curses4j_wdeleteln(JNIEnv *env, jobject that, jlong peer) {
@@ -403,6 +653,24 @@ jint curses4j_flushinp(JNIEnv *env, jobject that) {
   return flushinp();
 }
 
+/*
+ * xterm bracketed paste, from the BE/BD capabilities of the terminfo entry
+ * when it has them. putp goes through the output of ncurses, so the sequence
+ * stays in order with the screen updates and is sent with the next one. The
+ * console of PDCurses has no equivalent.
+ */
+jint curses4j_bracketed_paste(JNIEnv *env, jclass klass, jint bf) {
+#ifdef NCURSES_VERSION
+  const char *cap = tigetstr(bf ? "BE" : "BD");
+  if (cap == NULL || cap == (char *) -1) {
+    cap = bf ? "\033[?2004h" : "\033[?2004l";
+  }
+  return putp(cap);
+#else
+  return ERR;
+#endif
+}
+
 jint curses4j_is_termresized(JNIEnv *env, jobject that) {
   return is_termresized() == TRUE ? 1 : 0;
 }
@@ -456,16 +724,6 @@ jint curses4j_mvwin(JNIEnv *env, jobject that, jlong peer, jint y, jint x) {
   return mvwin(win, y, x);
 }
 
-jint curses4j_mvwprintw(JNIEnv *env, jobject that, jlong peer, jint y, jint x, jstring str) {
-  const char *_str = str == NULL ? NULL : (char *) (*env)->GetStringUTFChars(env, str, NULL);
-  WINDOW* win = *(WINDOW **) &peer;
-  jint ret = (jint) mvwprintw(win, y, x, _str);
-  if (_str) {
-    (*env)->ReleaseStringUTFChars(env, str, _str);
-  }
-  return ret;
-}
-
 jint curses4j_scroll(JNIEnv *env, jobject that, jlong peer) {
   WINDOW* win = *(WINDOW **) &peer;
   return scroll(win);
@@ -497,6 +755,207 @@ jlong curses4j_subpad(JNIEnv *env, jobject that, jlong peer, jint nlines, jint n
   return (jlong) subpad(win, nlines, ncols, begy, begx);
 }
 
+jint curses4j_exec_batch(JNIEnv *env, jobject that, jlong peer, jobject ops, jint len) {
+  WINDOW* win = *(WINDOW **) &peer;
+  jint *op = (jint *) (*env)->GetDirectBufferAddress(env, ops);
+  jint *end = NULL;
+  jint ret = OK;
+  if (op == NULL || len < 0 || (jlong) len > (*env)->GetDirectBufferCapacity(env, ops) / (jlong) sizeof(jint)) {
+    return ERR;
+  }
+  end = op + len;
+  while (op < end) {
+    switch (*op++) {
+      case CURSES4J_OP_ADDCH:
+        if (waddch(win, op[0]) == ERR) ret = ERR;
+        op += 1;
+        break;
+      case CURSES4J_OP_MVADDCH:
+        if (mvwaddch(win, op[0], op[1], op[2]) == ERR) ret = ERR;
+        op += 3;
+        break;
+      case CURSES4J_OP_MOVE:
+        if (wmove(win, op[0], op[1]) == ERR) ret = ERR;
+        op += 2;
+        break;
+      case CURSES4J_OP_ATTRON:
+        if (wattron(win, op[0]) == ERR) ret = ERR;
+        op += 1;
+        break;
+      case CURSES4J_OP_ATTROFF:
+        if (wattroff(win, op[0]) == ERR) ret = ERR;
+        op += 1;
+        break;
+      case CURSES4J_OP_ATTRSET:
+        if (wattrset(win, op[0]) == ERR) ret = ERR;
+        op += 1;
+        break;
+      default:
+        return ERR;
+    }
+  }
+  return ret;
+}
+
+/* copies len cells to y, x; a negative y writes at the current cursor position */
+static jint curses4j_put_cells(WINDOW* win, jint y, jint x, const jint *cells, jint len) {
+  chtype buf[256];
+  jint i = 0;
+  jint n = 0;
+  if (y < 0) {
+    y = getcury(win);
+    x = getcurx(win);
+  }
+  if (sizeof(chtype) == sizeof(jint)) {
+    return mvwaddchnstr(win, y, x, (const chtype *) cells, len);
+  }
+  for (i = 0; i < len; i += n) {
+    jint j = 0;
+    n = len - i < 256 ? len - i : 256;
+    for (j = 0; j < n; j++) {
+      buf[j] = (chtype) (unsigned int) cells[i + j];
+    }
+    if (mvwaddchnstr(win, y, x + i, buf, n) == ERR) {
+      return i == 0 ? ERR : OK;
+    }
+  }
+  return OK;
+}
+
+jint curses4j_mvwaddchnstr(JNIEnv *env, jobject that, jlong peer, jint y, jint x, jintArray cells, jint off, jint len) {
+  WINDOW* win = *(WINDOW **) &peer;
+  jint ret = ERR;
+  jint *_cells = (jint *) (*env)->GetPrimitiveArrayCritical(env, cells, NULL);
+  if (_cells == NULL) {
+    return ERR;
+  }
+  ret = curses4j_put_cells(win, y, x, _cells + off, len);
+  (*env)->ReleasePrimitiveArrayCritical(env, cells, _cells, JNI_ABORT);
+  return ret;
+}
+
+jint curses4j_mvwaddchnstr_direct(JNIEnv *env, jobject that, jlong peer, jint y, jint x, jobject cells, jint off, jint len) {
+  WINDOW* win = *(WINDOW **) &peer;
+  jint *_cells = (jint *) (*env)->GetDirectBufferAddress(env, cells);
+  if (_cells == NULL) {
+    return ERR;
+  }
+  return curses4j_put_cells(win, y, x, _cells + off, len);
+}
+
+/* reads up to len cells from y, x without moving the cursor, returns the number of cells read */
+static jint curses4j_get_cells(WINDOW* win, jint y, jint x, jint *cells, jint len) {
+  int cury = getcury(win);
+  int curx = getcurx(win);
+  jint n = getmaxx(win) - x;
+  jint i = 0;
+  if (y < 0 || y >= getmaxy(win) || x < 0 || n <= 0) {
+    return ERR;
+  }
+  if (len < n) {
+    n = len;
+  }
+  for (i = 0; i < n; i++) {
+    cells[i] = (jint) mvwinch(win, y, x + i);
+  }
+  wmove(win, cury, curx);
+  return n;
+}
+
+/* reads the whole window row by row, returns the number of cells read */
+static jint curses4j_get_window(WINDOW* win, jint *cells, jint len) {
+  int rows = getmaxy(win);
+  int cols = getmaxx(win);
+  int y = 0;
+  if (rows <= 0 || cols <= 0 || len / cols < rows) {
+    return ERR;
+  }
+  for (y = 0; y < rows; y++) {
+    curses4j_get_cells(win, y, 0, cells + y * cols, cols);
+  }
+  return rows * cols;
+}
+
+jint curses4j_winch(JNIEnv *env, jobject that, jlong peer) {
+  WINDOW* win = *(WINDOW **) &peer;
+  return (jint) winch(win);
+}
+
+jint curses4j_mvwinch(JNIEnv *env, jobject that, jlong peer, jint y, jint x) {
+  WINDOW* win = *(WINDOW **) &peer;
+  return (jint) mvwinch(win, y, x);
+}
+
+jint curses4j_mvwinchnstr(JNIEnv *env, jobject that, jlong peer, jint y, jint x, jintArray cells, jint off, jint len) {
+  WINDOW* win = *(WINDOW **) &peer;
+  jint ret = ERR;
+  jint *_cells = (jint *) (*env)->GetPrimitiveArrayCritical(env, cells, NULL);
+  if (_cells == NULL) {
+    return ERR;
+  }
+  ret = y < 0 ? curses4j_get_window(win, _cells + off, len) : curses4j_get_cells(win, y, x, _cells + off, len);
+  (*env)->ReleasePrimitiveArrayCritical(env, cells, _cells, ret > 0 ? 0 : JNI_ABORT);
+  return ret;
+}
+
+jint curses4j_mvwinchnstr_direct(JNIEnv *env, jobject that, jlong peer, jint y, jint x, jobject cells, jint off, jint len) {
+  WINDOW* win = *(WINDOW **) &peer;
+  jint *_cells = (jint *) (*env)->GetDirectBufferAddress(env, cells);
+  if (_cells == NULL) {
+    return ERR;
+  }
+  return y < 0 ? curses4j_get_window(win, _cells + off, len) : curses4j_get_cells(win, y, x, _cells + off, len);
+}
+
+jint curses4j_mvwaddnwstr(JNIEnv *env, jobject that, jlong peer, jint y, jint x, jcharArray str, jint off, jint len) {
+  WINDOW* win = *(WINDOW **) &peer;
+  jint ret = ERR;
+  jchar *_str = (jchar *) (*env)->GetPrimitiveArrayCritical(env, str, NULL);
+  if (_str == NULL) {
+    return ERR;
+  }
+  ret = curses4j_put_wstr(win, y, x, _str + off, len, FALSE);
+  (*env)->ReleasePrimitiveArrayCritical(env, str, _str, JNI_ABORT);
+  return ret;
+}
+
+void curses4j_getgeometry(JNIEnv *env, jobject that, jlong peer, jintArray geometry) {
+  WINDOW* win = *(WINDOW **) &peer;
+  jint values[6];
+  values[0] = getbegy(win);
+  values[1] = getbegx(win);
+  values[2] = getmaxy(win);
+  values[3] = getmaxx(win);
+  values[4] = getpary(win);
+  values[5] = getparx(win);
+  (*env)->SetIntArrayRegion(env, geometry, 0, 6, values);
+}
+
+jlong curses4j_getyx(JNIEnv *env, jobject that, jlong peer) {
+  WINDOW* win = *(WINDOW **) &peer;
+  return ((jlong) getcury(win) << 32) | (jlong) (unsigned int) getcurx(win);
+}
+
+jint curses4j_getattrs(JNIEnv *env, jobject that, jlong peer) {
+  WINDOW* win = *(WINDOW **) &peer;
+  return (jint) getattrs(win);
+}
+
+jint curses4j_wnoutrefresh(JNIEnv *env, jobject that, jlong peer) {
+  WINDOW* win = *(WINDOW **) &peer;
+  return (jint) wnoutrefresh(win);
+}
+
+jint curses4j_pnoutrefresh(JNIEnv *env, jobject that, jlong peer,
+              jint py, jint px, jint sy1, jint sx1, jint sy2, jint sx2) {
+  WINDOW* win = *(WINDOW **) &peer;
+  return (jint) pnoutrefresh(win, py, px, sy1, sx1, sy2, sx2);
+}
+
+jint curses4j_doupdate(JNIEnv *env, jclass klass) {
+  return (jint) doupdate();
+}
+
 jint JNI_OnLoad(JavaVM* vm, void* reserved) {
   JNIEnv* env;
   jclass klass;
@@ -505,34 +964,52 @@ jint JNI_OnLoad(JavaVM* vm, void* reserved) {
     { "curses4j_initscr", "()J", (void*) curses4j_initscr },
     { "curses4j_start_color", "()I", (void*) curses4j_start_color },
     { "curses4j_init_pair", "(SSS)I", (void*) curses4j_init_pair },
-    { "curses4j_wattr_on", "(JI)I", (void*) curses4j_wattr_on },
-    { "curses4j_wprintw", "(JLjava/lang/String;)I", (void*) curses4j_wprintw },
     { "curses4j_wrefresh", "(J)I", (void*) curses4j_wrefresh },
     { "curses4j_endwin", "()I", (void*) curses4j_endwin },
     { "curses4j_waddch", "(JI)I", (void*) curses4j_waddch },
     { "curses4j_wgetch", "(J)I", (void*) curses4j_wgetch },
+    { "curses4j_wgetkeys", "(J[IIII)I", (void*) curses4j_wgetkeys },
+    { "curses4j_wait_input", "(I)I", (void*) curses4j_wait_input },
     { "curses4j_waddstr", "(JLjava/lang/String;)I", (void*) curses4j_waddstr },
     { "curses4j_mvwaddstr", "(JIILjava/lang/String;)I", (void*) curses4j_mvwaddstr },
     { "curses4j_noecho", "()I", (void*) curses4j_noecho },
+    { "curses4j_cbreak", "()I", (void*) curses4j_cbreak },
+    { "curses4j_nocbreak", "()I", (void*) curses4j_nocbreak },
+    { "curses4j_raw", "()I", (void*) curses4j_raw },
+    { "curses4j_noraw", "()I", (void*) curses4j_noraw },
+    { "curses4j_halfdelay", "(I)I", (void*) curses4j_halfdelay },
+    { "curses4j_set_escdelay", "(I)I", (void*) curses4j_set_escdelay },
     { "curses4j_nodelay", "(JI)I", (void*) curses4j_nodelay },
+    { "curses4j_wtimeout", "(JI)I", (void*) curses4j_wtimeout },
+    { "curses4j_notimeout", "(JI)I", (void*) curses4j_notimeout },
+    { "curses4j_mousemask", "(J)J", (void*) curses4j_mousemask },
+    { "curses4j_mouseinterval", "(I)I", (void*) curses4j_mouseinterval },
+    { "curses4j_getmouse", "([I)J", (void*) curses4j_getmouse },
+    { "curses4j_ungetmouse", "(IIIIJ)I", (void*) curses4j_ungetmouse },
+    { "curses4j_mouse_masks", "([J)I", (void*) curses4j_mouse_masks },
+    { "curses4j_wenclose", "(JII)I", (void*) curses4j_wenclose },
+    { "curses4j_wmouse_trafo", "(J[II)I", (void*) curses4j_wmouse_trafo },
     { "curses4j_napms", "(I)I", (void*) curses4j_napms },
     { "curses4j_mvwinsch", "(JIIC)I", (void*) curses4j_mvwinsch },
     { "curses4j_mvwdelch", "(JII)I", (void*) curses4j_mvwdelch },
-    { "curses4j_wgetnstr", "(JI)Ljava/lang/String;", (void*) curses4j_wgetnstr },
+    { "curses4j_wgetnstr", "(JI[I)Ljava/lang/String;", (void*) curses4j_wgetnstr },
     { "curses4j_unctrl", "(I)Ljava/lang/String;", (void*) curses4j_unctrl },
-    { "curses4j_getmaxx", "(J)I", (void*) curses4j_getmaxx },
-    { "curses4j_getmaxy", "(J)I", (void*) curses4j_getmaxy },
     { "curses4j_wclear", "(J)I", (void*) curses4j_wclear },
     { "curses4j_typeahead", "(I)I", (void*) curses4j_typeahead },
+    { "curses4j_bracketed_paste", "(I)I", (void*) curses4j_bracketed_paste },
     { "curses4j_def_shell_mode", "()I", (void*) curses4j_def_shell_mode },
     { "curses4j_newwin", "(IIII)J", (void*) curses4j_newwin },
-    { "curses4j_getpary", "(J)I", (void*) curses4j_getpary },
-    { "curses4j_getparx", "(J)I", (void*) curses4j_getparx },
     { "curses4j_wbkgd", "(JJ)I", (void*) curses4j_wbkgd },
     { "curses4j_subwin", "(JIIII)J", (void*) curses4j_subwin },
     { "curses4j_touchwin", "(J)I", (void*) curses4j_touchwin },
+    { "curses4j_wtouchln", "(JIII)I", (void*) curses4j_wtouchln },
+    { "curses4j_is_linetouched", "(JI)I", (void*) curses4j_is_linetouched },
+    { "curses4j_is_wintouched", "(J)I", (void*) curses4j_is_wintouched },
+    { "curses4j_untouchwin", "(J)I", (void*) curses4j_untouchwin },
     { "curses4j_derwin", "(JIIII)J", (void*) curses4j_derwin },
     { "curses4j_scrollok", "(JI)I", (void*) curses4j_scrollok },
+    { "curses4j_idlok", "(JI)I", (void*) curses4j_idlok },
+    { "curses4j_idcok", "(JI)I", (void*) curses4j_idcok },
     { "curses4j_wmove", "(JII)I", (void*) curses4j_wmove },
     { "curses4j_wattron", "(JI)I", (void*) curses4j_wattron },
     { "curses4j_wattroff", "(JI)I", (void*) curses4j_wattroff },
@@ -544,12 +1021,7 @@ jint JNI_OnLoad(JavaVM* vm, void* reserved) {
     { "curses4j_has_colors", "()I", (void*) curses4j_has_colors },
     { "curses4j_colors", "()I", (void*) curses4j_colors },
     { "curses4j_color_pairs", "()I", (void*) curses4j_color_pairs },
-    { "curses4j_color_pair", "(I)I", (void*) curses4j_color_pair },
-    { "curses4j_pair_number", "(I)I", (void*) curses4j_pair_number },
-    { "curses4j_pdc_acs", "(I)I", (void*) curses4j_pdc_acs },
     { "curses4j_mvwaddch", "(JIII)I", (void*) curses4j_mvwaddch },
-    { "curses4j_getcury", "(J)I", (void*) curses4j_getcury },
-    { "curses4j_getcurx", "(J)I", (void*) curses4j_getcurx },
     { "curses4j_lines", "()I", (void*)  curses4j_lines },
     { "curses4j_cols", "()I", (void*) curses4j_cols },
     { "curses4j_winsertln", "(J)I", (void*) curses4j_winsertln },
@@ -575,13 +1047,26 @@ jint JNI_OnLoad(JavaVM* vm, void* reserved) {
     { "curses4j_copywin", "(JJIIIIIII)I", (void*) curses4j_copywin },
     { "curses4j_dupwin", "(J)J", (void*) curses4j_dupwin },
     { "curses4j_mvwin", "(JII)I", (void*) curses4j_mvwin },
-    { "curses4j_mvwprintw", "(JIILjava/lang/String;)I", (void*) curses4j_mvwprintw },
     { "curses4j_scroll", "(J)I", (void*) curses4j_scroll },
     { "curses4j_wscrl", "(JI)I", (void*) curses4j_wscrl },
     { "curses4j_wsetscrreg", "(JII)I", (void*) curses4j_wsetscrreg },
     { "curses4j_newpad", "(II)J", (void*) curses4j_newpad },
     { "curses4j_prefresh", "(JIIIIII)I", (void*) curses4j_prefresh },
-    { "curses4j_subpad", "(JIIII)J", (void*) curses4j_subpad }
+    { "curses4j_subpad", "(JIIII)J", (void*) curses4j_subpad },
+    { "curses4j_exec_batch", "(JLjava/nio/ByteBuffer;I)I", (void*) curses4j_exec_batch },
+    { "curses4j_mvwaddchnstr", "(JII[III)I", (void*) curses4j_mvwaddchnstr },
+    { "curses4j_mvwaddchnstr_direct", "(JIILjava/nio/Buffer;II)I", (void*) curses4j_mvwaddchnstr_direct },
+    { "curses4j_winch", "(J)I", (void*) curses4j_winch },
+    { "curses4j_mvwinch", "(JII)I", (void*) curses4j_mvwinch },
+    { "curses4j_mvwinchnstr", "(JII[III)I", (void*) curses4j_mvwinchnstr },
+    { "curses4j_mvwinchnstr_direct", "(JIILjava/nio/Buffer;II)I", (void*) curses4j_mvwinchnstr_direct },
+    { "curses4j_mvwaddnwstr", "(JII[CII)I", (void*) curses4j_mvwaddnwstr },
+    { "curses4j_getgeometry", "(J[I)V", (void*) curses4j_getgeometry },
+    { "curses4j_getyx", "(J)J", (void*) curses4j_getyx },
+    { "curses4j_getattrs", "(J)I", (void*) curses4j_getattrs },
+    { "curses4j_wnoutrefresh", "(J)I", (void*) curses4j_wnoutrefresh },
+    { "curses4j_pnoutrefresh", "(JIIIIII)I", (void*) curses4j_pnoutrefresh },
+    { "curses4j_doupdate", "()I", (void*) curses4j_doupdate }
   };
 
   if ((*vm)->GetEnv(vm, (void **) &env, JNI_VERSION_1_8) != JNI_OK) {
@@ -0,0 +1,130 @@
+package io.webfolder.curses4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.Test;
+
+/**
+ * ChType picks its layout once, so each layout is loaded in its own class
+ * loader with the <code>curses4j.chtype</code> property set.
+ */
+public class ChTypeTest {
+
+    @Test
+    public void ncursesLayout() throws Exception {
+        Class<?> type = load("ncurses");
+        assertEquals(false, type.getField("PDCURSES").get(null));
+        assertEquals(0x000000ff, constant(type, "A_CHARTEXT"));
+        assertEquals(0x0000ff00, constant(type, "A_COLOR"));
+        assertEquals(0x00200000, constant(type, "A_BOLD"));
+
+        int cell = call(type, "encode", 'a', constant(type, "A_BOLD") | constant(type, "A_UNDERLINE"), 3);
+        assertEquals('a' | 0x00200000 | 0x00020000 | 0x0300, cell);
+        assertEquals('a', call(type, "charOf", cell));
+        assertEquals(3, call(type, "pairNumber", cell));
+        assertEquals(0x00200000 | 0x00020000, call(type, "attrsOf", cell));
+
+        // pairs beyond the 8 bit field and chars beyond A_CHARTEXT are cut
+        assertEquals(0, call(type, "colorPair", 256));
+        assertEquals(0x41, call(type, "encode", 0x141, 0, 0));
+        // a color pair passed as an attribute does not leak into the cell
+        assertEquals(0x0500, call(type, "encode", 0, 0x0700, 5));
+    }
+
+    @Test
+    public void pdcursesLayout() throws Exception {
+        Class<?> type = load("pdcurses");
+        assertEquals(true, type.getField("PDCURSES").get(null));
+        assertEquals(0x0000ffff, constant(type, "A_CHARTEXT"));
+        assertEquals(0xff000000, constant(type, "A_COLOR"));
+        assertEquals(0x00800000, constant(type, "A_BOLD"));
+        assertEquals(constant(type, "A_REVERSE") | constant(type, "A_BOLD"), constant(type, "A_STANDOUT"));
+        assertEquals(0, constant(type, "A_DIM"));
+
+        int cell = call(type, "encode", 0x20ac, constant(type, "A_BOLD"), 200);
+        assertEquals(0x20ac | 0x00800000 | 200 << 24, cell);
+        assertEquals(0x20ac, call(type, "charOf", cell));
+        assertEquals(200, call(type, "pairNumber", cell));
+        assertEquals(0x00800000, call(type, "attrsOf", cell));
+    }
+
+    @Test
+    public void attributesDoNotOverlap() throws Exception {
+        for (String layout : new String[] { "ncurses", "pdcurses" }) {
+            Class<?> type = load(layout);
+            int seen = constant(type, "A_CHARTEXT") | constant(type, "A_COLOR");
+            for (String name : new String[] { "A_ALTCHARSET", "A_RIGHT", "A_LEFT", "A_ITALIC", "A_UNDERLINE",
+                    "A_REVERSE", "A_BLINK", "A_BOLD" }) {
+                int attr = constant(type, name);
+                assertEquals(layout + " " + name, 1, Integer.bitCount(attr));
+                assertEquals(layout + " " + name, 0, seen & attr);
+                seen |= attr;
+            }
+        }
+    }
+
+    @Test
+    public void printable() {
+        assertEquals('a', ChType.printable('a'));
+        assertEquals(0xe9, ChType.printable('\u00e9'));
+        assertEquals('?', ChType.printable('\0'));
+        assertEquals('?', ChType.printable('\n'));
+        assertEquals('?', ChType.printable('\u0085'));
+        assertEquals('?', ChType.printable('\ud83d'));
+        assertEquals(ChType.PDCURSES ? 0x20ac : '?', ChType.printable('\u20ac'));
+    }
+
+    @Test
+    public void nonEmpty() {
+        assertEquals(' ' | ChType.A_BOLD, ChType.nonEmpty(ChType.A_BOLD));
+        assertEquals('x' | ChType.A_BOLD, ChType.nonEmpty('x' | ChType.A_BOLD));
+    }
+
+    @Test
+    public void invalidLayout() throws Exception {
+        try {
+            load("curses");
+            fail();
+        } catch (ExceptionInInitializerError e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    private static Class<?> load(String layout) throws Exception {
+        URL classes = ChType.class.getProtectionDomain().getCodeSource().getLocation();
+        String previous = System.setProperty("curses4j.chtype", layout);
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { classes }, null)) {
+            return Class.forName(ChType.class.getName(), true, loader);
+        } finally {
+            if (previous == null) {
+                System.clearProperty("curses4j.chtype");
+            } else {
+                System.setProperty("curses4j.chtype", previous);
+            }
+        }
+    }
+
+    private static int constant(Class<?> type, String name) throws Exception {
+        return type.getField(name).getInt(null);
+    }
+
+    private static int call(Class<?> type, String name, int... args) throws Exception {
+        Class<?>[] types = new Class<?>[args.length];
+        Object[] values = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            types[i] = int.class;
+            values[i] = args[i];
+        }
+        try {
+            return (Integer) type.getMethod(name, types).invoke(null, values);
+        } catch (InvocationTargetException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+}
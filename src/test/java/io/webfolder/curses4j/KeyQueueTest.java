@@ -0,0 +1,137 @@
+package io.webfolder.curses4j;
+
+import static io.webfolder.curses4j.Curses.ERR;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class KeyQueueTest {
+
+    @Test
+    public void fifo() {
+        KeyQueue queue = new KeyQueue(4);
+        assertEquals(ERR, queue.poll());
+        queue.offer('a');
+        queue.offer('b');
+        assertEquals(2, queue.size());
+        assertEquals('a', queue.poll());
+        assertEquals('b', queue.poll());
+        assertEquals(ERR, queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void wrapsAround() {
+        KeyQueue queue = new KeyQueue(4);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(queue.offer(i));
+            assertTrue(queue.offer(i + 1000));
+            assertEquals(i, queue.poll());
+            assertEquals(i + 1000, queue.poll());
+        }
+        assertEquals(0, queue.dropped());
+    }
+
+    @Test
+    public void capacityIsRoundedUpToAPowerOfTwo() {
+        KeyQueue queue = new KeyQueue(5);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(8));
+    }
+
+    @Test
+    public void dropsWhenFull() {
+        KeyQueue queue = new KeyQueue(2);
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertFalse(queue.offer(3));
+        assertFalse(queue.offer(4));
+        assertEquals(2, queue.dropped());
+        assertEquals(1, queue.poll());
+        assertTrue(queue.offer(5));
+        assertEquals(2, queue.poll());
+        assertEquals(5, queue.poll());
+        assertEquals(ERR, queue.poll());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCapacity() {
+        new KeyQueue(0);
+    }
+
+    @Test
+    public void takeTimesOut() throws InterruptedException {
+        KeyQueue queue = new KeyQueue(4);
+        long start = System.nanoTime();
+        assertEquals(ERR, queue.take(20, MILLISECONDS));
+        assertTrue(System.nanoTime() - start >= MILLISECONDS.toNanos(20));
+        assertEquals(ERR, queue.take(0, MILLISECONDS));
+    }
+
+    @Test
+    public void takeWakesUpOnOffer() throws InterruptedException {
+        KeyQueue queue = new KeyQueue(4);
+        CountDownLatch waiting = new CountDownLatch(1);
+        AtomicInteger key = new AtomicInteger();
+        Thread consumer = new Thread(() -> {
+            waiting.countDown();
+            try {
+                key.set(queue.take(10, SECONDS));
+            } catch (InterruptedException e) {
+                key.set(ERR);
+            }
+        });
+        consumer.start();
+        waiting.await();
+        Thread.sleep(20);
+        queue.offer('x');
+        consumer.join(SECONDS.toMillis(5));
+        assertFalse(consumer.isAlive());
+        assertEquals('x', key.get());
+    }
+
+    @Test
+    public void concurrentConsumersSeeEveryKeyOnce() throws InterruptedException {
+        KeyQueue queue = new KeyQueue(64);
+        int keys = 200_000;
+        AtomicLong sum = new AtomicLong();
+        AtomicInteger taken = new AtomicInteger();
+        Thread[] consumers = new Thread[4];
+        for (int c = 0; c < consumers.length; c++) {
+            consumers[c] = new Thread(() -> {
+                try {
+                    while (taken.get() < keys) {
+                        int key = queue.take(10, MILLISECONDS);
+                        if (key != ERR) {
+                            sum.addAndGet(key);
+                            taken.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            consumers[c].start();
+        }
+        for (int i = 1; i <= keys; i++) {
+            while (!queue.offer(i)) {
+                Thread.yield();
+            }
+        }
+        for (Thread consumer : consumers) {
+            consumer.join(SECONDS.toMillis(30));
+        }
+        assertEquals(keys, taken.get());
+        assertEquals((long) keys * (keys + 1) / 2, sum.get());
+    }
+}
@@ -0,0 +1,93 @@
+package io.webfolder.curses4j;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void empty() {
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(50));
+        assertEquals(0, histogram.percentile(99));
+        assertEquals(0, histogram.max());
+    }
+
+    @Test
+    public void percentileIsBucketUpperBound() {
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1000);
+        }
+        histogram.record(1_000_000);
+        assertEquals(100, histogram.count());
+        assertEquals(99 * 1000 + 1_000_000, histogram.total());
+        assertEquals(1_000_000, histogram.max());
+        // 1000 falls in [512, 1023]
+        assertEquals(1023, histogram.percentile(50));
+        assertEquals(1023, histogram.percentile(99));
+        // the bound of the last bucket is capped by the maximum
+        assertEquals(1_000_000, histogram.percentile(100));
+    }
+
+    @Test
+    public void bucketEdges() {
+        histogram.record(512);
+        assertEquals(512, histogram.percentile(50));
+        histogram.record(1023);
+        assertEquals(1023, histogram.percentile(100));
+        histogram.reset();
+        histogram.record(1024);
+        histogram.record(4096);
+        assertEquals(2047, histogram.percentile(50));
+    }
+
+    @Test
+    public void smallAndNegative() {
+        histogram.record(-5);
+        histogram.record(0);
+        histogram.record(1);
+        assertEquals(3, histogram.count());
+        assertEquals(1, histogram.total());
+        assertEquals(1, histogram.percentile(100));
+    }
+
+    @Test
+    public void largest() {
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.max());
+        assertEquals(Long.MAX_VALUE, histogram.percentile(50));
+    }
+
+    @Test
+    public void reset() {
+        histogram.record(100);
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.total());
+        assertEquals(0, histogram.max());
+        assertEquals(0, histogram.percentile(50));
+    }
+
+    @Test
+    public void concurrentRecording() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long value = 100 * (t + 1);
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(value);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, histogram.count());
+        assertEquals(100_000L * (100 + 200 + 300 + 400), histogram.total());
+        assertEquals(400, histogram.max());
+    }
+}
@@ -0,0 +1,182 @@
+package io.webfolder.curses4j;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PasteDecoderTest {
+
+    private static final int ESC = 27;
+
+    private final List<Integer> keys = new ArrayList<>();
+
+    private final List<String> chunks = new ArrayList<>();
+
+    private final List<Boolean> last = new ArrayList<>();
+
+    private final PasteDecoder decoder = decoder(16);
+
+    @Test
+    public void keysPassThrough() {
+        decode("ab");
+        decoder.decode(0x103);
+        assertEquals(keys('a', 'b', 0x103), keys);
+        assertTrue(chunks.isEmpty());
+    }
+
+    @Test
+    public void paste() {
+        decode("x\033[200~hello\033[201~y");
+        assertEquals(keys('x', 'y'), keys);
+        assertEquals(list("hello"), chunks);
+        assertEquals(list(true), last);
+        assertFalse(decoder.isPasting());
+    }
+
+    @Test
+    public void markersSplitAcrossCalls() {
+        decode("\033[2");
+        assertTrue(keys.isEmpty());
+        decode("00~ab\033[20");
+        assertTrue(decoder.isPasting());
+        assertTrue(chunks.isEmpty());
+        decode("1~");
+        assertFalse(decoder.isPasting());
+        assertTrue(keys.isEmpty());
+        assertEquals(list("ab"), chunks);
+    }
+
+    @Test
+    public void partialMarkerReleased() {
+        decode("\033[A\033[20x");
+        assertEquals(keys(ESC, '[', 'A', ESC, '[', '2', '0', 'x'), keys);
+        assertFalse(decoder.isPasting());
+    }
+
+    @Test
+    public void escapeRestartsMarker() {
+        decode("\033\033[200~");
+        assertEquals(keys(ESC), keys);
+        assertTrue(decoder.isPasting());
+    }
+
+    @Test
+    public void partialEndMarkerIsText() {
+        decode("\033[200~a\033[2b\033[201~");
+        assertTrue(keys.isEmpty());
+        assertEquals(list("a\033[2b"), chunks);
+    }
+
+    @Test
+    public void flushReleasesHeldKeys() {
+        decode("a\033");
+        assertEquals(keys('a'), keys);
+        decoder.flush();
+        assertEquals(keys('a', ESC), keys);
+        decoder.flush();
+        assertEquals(keys('a', ESC), keys);
+    }
+
+    @Test
+    public void flushWhilePasting() {
+        decode("\033[200~abc\033[");
+        decoder.flush();
+        assertTrue(decoder.isPasting());
+        assertEquals(list("abc\033["), chunks);
+        assertEquals(list(false), last);
+        decoder.flush();
+        assertEquals(1, chunks.size());
+        decode("d\033[201~");
+        assertEquals(list("abc\033[", "d"), chunks);
+        assertEquals(list(false, true), last);
+    }
+
+    @Test
+    public void emptyPaste() {
+        decode("\033[200~\033[201~");
+        assertEquals(list(""), chunks);
+        assertEquals(list(true), last);
+    }
+
+    @Test
+    public void chunks() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            text.append((char) ('a' + i % 26));
+        }
+        decode("\033[200~" + text + "\033[201~");
+        assertEquals(list(text.substring(0, 16), text.substring(16, 32), text.substring(32)), chunks);
+        assertEquals(list(false, false, true), last);
+    }
+
+    @Test
+    public void utf8SplitAtChunkBoundary() {
+        // the 3 byte euro sign straddles the end of the first 16 byte chunk
+        String text = "0123456789abcde€zé";
+        decode("\033[200~");
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            decoder.decode(b & 0xff);
+        }
+        decode("\033[201~");
+        assertEquals(list("0123456789abcde", "€zé"), chunks);
+        assertEquals(text, String.join("", chunks));
+    }
+
+    @Test
+    public void invalidUtf8Replaced() {
+        decode("\033[200~a");
+        decoder.decode(0xff);
+        decode("b\033[201~");
+        assertEquals(list("a�b"), chunks);
+    }
+
+    @Test
+    public void truncatedUtf8AtEnd() {
+        decode("\033[200~a");
+        decoder.decode(0xe2);
+        decoder.decode(0x82);
+        decode("\033[201~");
+        assertEquals(list("a�"), chunks);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void chunkSizeTooSmall() {
+        decoder(15);
+    }
+
+    private PasteDecoder decoder(int chunkSize) {
+        return new PasteDecoder(key -> keys.add(key), (chunk, end) -> {
+            chunks.add(chunk.toString());
+            last.add(end);
+        }, chunkSize);
+    }
+
+    private void decode(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            decoder.decode(text.charAt(i));
+        }
+    }
+
+    private static List<Integer> keys(int... values) {
+        List<Integer> list = new ArrayList<>();
+        for (int value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    @SafeVarargs
+    private static <T> List<T> list(T... values) {
+        List<T> list = new ArrayList<>();
+        for (T value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,98 @@
+package io.webfolder.curses4j;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PrinterTest {
+
+    private final Printer printer = new Printer(null);
+
+    @Test
+    public void integers() {
+        assertEquals("0", text(printer.append(0)));
+        assertEquals("42", text(printer.append(42)));
+        assertEquals("-7", text(printer.append(-7)));
+        assertEquals("-2147483648", text(printer.append(Integer.MIN_VALUE)));
+        assertEquals("9223372036854775807", text(printer.append(Long.MAX_VALUE)));
+        assertEquals("-9223372036854775808", text(printer.append(Long.MIN_VALUE)));
+    }
+
+    @Test
+    public void fieldWidth() {
+        assertEquals("  42", text(printer.append(42, 4)));
+        assertEquals(" -42", text(printer.append(-42, 4)));
+        assertEquals("12345", text(printer.append(12345, 3)));
+        for (long value : new long[] { 0, 9, -9, 100, -1000, Long.MIN_VALUE }) {
+            assertEquals(String.format("%6d", value), text(printer.append(value, 6)));
+        }
+    }
+
+    @Test
+    public void doubles() {
+        assertEquals("3.14", text(printer.append(3.14159, 2)));
+        assertEquals("3", text(printer.append(2.5, 0)));
+        assertEquals("-3", text(printer.append(-2.5, 0)));
+        assertEquals("-1.5", text(printer.append(-1.5, 1)));
+        assertEquals("10.00", text(printer.append(9.999, 2)));
+        assertEquals("0.05", text(printer.append(0.05, 2)));
+        assertEquals("1234.568", text(printer.append(1234.5678, 3)));
+        assertEquals("0.000000001", text(printer.append(1e-9, 9)));
+    }
+
+    @Test
+    public void negativeZero() {
+        assertEquals("0.00", text(printer.append(-0.001, 2)));
+        assertEquals("0", text(printer.append(-0.0, 0)));
+    }
+
+    @Test
+    public void notFinite() {
+        assertEquals("NaN", text(printer.append(Double.NaN, 2)));
+        assertEquals("Infinity", text(printer.append(Double.POSITIVE_INFINITY, 2)));
+        assertEquals("-Infinity", text(printer.append(Double.NEGATIVE_INFINITY, 2)));
+        assertEquals(Double.toString(1e300), text(printer.append(1e300, 2)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void precisionOutOfRange() {
+        printer.append(1.0, 10);
+    }
+
+    @Test
+    public void text() {
+        printer.append("load ").append(87, 3).append('%').append(null);
+        assertEquals("load  87%null", text(printer));
+        printer.append(new StringBuilder("abcdef"), 2, 4);
+        assertEquals("cd", text(printer));
+    }
+
+    @Test
+    public void grows() {
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            printer.append(i).append(',');
+            expected.append(i).append(',');
+        }
+        assertEquals(expected.toString(), text(printer));
+    }
+
+    @Test
+    public void format() {
+        printer.append('[').format("%5d|%-4s|%x", 42, "ab", 255).append(']');
+        assertEquals("[   42|ab  |ff]", text(printer));
+    }
+
+    @Test
+    public void reset() {
+        printer.append("abc").reset();
+        assertEquals(0, printer.length());
+        assertEquals("x", text(printer.append('x')));
+    }
+
+    private static String text(Printer printer) {
+        String text = printer.toString();
+        printer.reset();
+        return text;
+    }
+}
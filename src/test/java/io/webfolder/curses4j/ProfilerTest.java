@@ -0,0 +1,104 @@
+package io.webfolder.curses4j;
+
+import static java.lang.reflect.Modifier.isNative;
+import static java.lang.reflect.Modifier.isStatic;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * The window classes are inspected without being initialized, so the native
+ * library is never loaded. Calls that are not bound to a window are not
+ * profiled.
+ */
+public class ProfilerTest {
+
+    @Test
+    public void methodsAreUnique() {
+        assertEquals(Profiler.METHODS.length, new HashSet<>(Arrays.asList(Profiler.METHODS)).size());
+    }
+
+    @Test
+    public void methodsAreTheInstanceNatives() throws Exception {
+        Set<String> natives = new TreeSet<>();
+        for (Method method : peer("CursesWindow").getDeclaredMethods()) {
+            if (perWindow(method)) {
+                natives.add(method.getName());
+            }
+        }
+        assertEquals(natives, new TreeSet<>(Arrays.asList(Profiler.METHODS)));
+    }
+
+    @Test
+    public void everyNativeIsProfiled() throws Exception {
+        Class<?> profiling = peer("ProfilingCursesWindow");
+        for (Method method : peer("CursesWindow").getDeclaredMethods()) {
+            if (perWindow(method)) {
+                Method override = profiling.getDeclaredMethod(method.getName(), method.getParameterTypes());
+                assertEquals(method.getReturnType(), override.getReturnType());
+            }
+        }
+    }
+
+    @Test
+    public void indexesFollowMethodNames() throws Exception {
+        Set<Integer> indexes = new HashSet<>();
+        for (Field field : peer("ProfilingCursesWindow").getDeclaredFields()) {
+            if (isStatic(field.getModifiers()) && field.getType() == int.class) {
+                String method = "curses4j_" + field.getName().toLowerCase();
+                indexes.add(Profiler.index(method));
+            }
+        }
+        assertEquals(Profiler.METHODS.length, indexes.size());
+    }
+
+    @Test
+    public void index() {
+        for (int i = 0; i < Profiler.METHODS.length; i++) {
+            assertEquals(i, Profiler.index(Profiler.METHODS[i]));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownMethod() {
+        Profiler.index("curses4j_initscr2");
+    }
+
+    @Test
+    public void disabledByDefault() {
+        assertFalse(Profiler.isEnabled());
+        assertEquals(0, Profiler.getCalls("curses4j_waddch"));
+        assertEquals(0, Profiler.getNanos("curses4j_waddch"));
+        assertTrue(Profiler.report().contains("-Dcurses4j.profile=true"));
+    }
+
+    /**
+     * The natives bound to a window take its pointer as <code>peer</code>,
+     * the main classes are compiled with <code>-parameters</code>.
+     */
+    private static boolean perWindow(Method method) {
+        if (!isNative(method.getModifiers())) {
+            return false;
+        }
+        Parameter[] parameters = method.getParameters();
+        if (parameters.length == 0) {
+            return method.getName().equals("curses4j_initscr");
+        }
+        assertTrue(method.getName(), parameters[0].isNamePresent());
+        return parameters[0].getName().equals("peer");
+    }
+
+    private static Class<?> peer(String name) throws ClassNotFoundException {
+        return Class.forName("io.webfolder.curses4j." + name, false, ProfilerTest.class.getClassLoader());
+    }
+}
@@ -0,0 +1,64 @@
+package io.webfolder.curses4j.bench;
+
+import static io.webfolder.curses4j.Curses.endwin;
+import static io.webfolder.curses4j.Curses.initscr;
+import static io.webfolder.curses4j.Curses.newwin;
+import static io.webfolder.curses4j.Curses.noecho;
+import static io.webfolder.curses4j.Curses.refresh;
+
+import io.webfolder.curses4j.Window;
+
+/**
+ * Times cheap native calls, which are dominated by the cost of crossing into
+ * native code, and prints the time per call of each after
+ * <code>endwin</code>. Run it once per backend to compare them:
+ *
+ * <pre>
+ * java -Dcurses4j.backend=jni -cp ... io.webfolder.curses4j.bench.BackendBench 1000000
+ * java -Dcurses4j.backend=ffm -cp ... io.webfolder.curses4j.bench.BackendBench 1000000
+ * </pre>
+ */
+public class BackendBench {
+
+    private static int sink;
+
+    public static void main(String[] args) {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        initscr();
+        noecho();
+        refresh();
+
+        Window win = newwin(1, 1, 0, 0);
+        win.addch('x');
+
+        // warm up, then measure
+        inch(win, calls);
+        touched(win, calls);
+        long inch = inch(win, calls);
+        long touched = touched(win, calls);
+
+        win.delwin();
+        endwin();
+
+        System.out.printf("backend %s, %d calls%n", System.getProperty("curses4j.backend", "jni"), calls);
+        System.out.printf("inch          %6.1f ns/call%n", (double) inch / calls);
+        System.out.printf("is_wintouched %6.1f ns/call%n", (double) touched / calls);
+    }
+
+    private static long inch(Window win, int calls) {
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            sink += win.inch();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long touched(Window win, int calls) {
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            sink += win.is_wintouched() ? 1 : 0;
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,78 @@
+package io.webfolder.curses4j.bench;
+
+import static io.webfolder.curses4j.Curses.COLS;
+import static io.webfolder.curses4j.Curses.LINES;
+import static io.webfolder.curses4j.Curses.endwin;
+import static io.webfolder.curses4j.Curses.initscr;
+import static io.webfolder.curses4j.Curses.newwin;
+import static io.webfolder.curses4j.Curses.noecho;
+import static io.webfolder.curses4j.Curses.refresh;
+
+import io.webfolder.curses4j.ScrollRegion;
+import io.webfolder.curses4j.Window;
+
+/**
+ * Scrolls a band of the screen one line at a time, first by repainting every
+ * line of the band and then through a {@link ScrollRegion}, and prints the
+ * time per line of both after <code>endwin</code>.
+ *
+ * The numbers depend on the terminal, so run it in the terminal of interest,
+ * or in a pseudo terminal to leave the display out:
+ *
+ * <pre>
+ * script -q -c "java -cp ... io.webfolder.curses4j.bench.ScrollBench 5000" /dev/null
+ * </pre>
+ */
+public class ScrollBench {
+
+    public static void main(String[] args) {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+        initscr();
+        noecho();
+        refresh();
+
+        Window win = newwin(LINES(), COLS(), 0, 0);
+        int top = 1;
+        int bottom = LINES() - 2;
+
+        long repaint = repaint(win, top, bottom, lines);
+        win.clear();
+        long region = region(win, top, bottom, lines);
+
+        win.delwin();
+        endwin();
+
+        System.out.printf("%dx%d, %d lines%n", COLS(), bottom - top + 1, lines);
+        System.out.printf("repaint      %8.1f us/line%n", repaint / 1e3 / lines);
+        System.out.printf("ScrollRegion %8.1f us/line%n", region / 1e3 / lines);
+    }
+
+    private static long repaint(Window win, int top, int bottom, int lines) {
+        long start = System.nanoTime();
+        for (int i = 0; i < lines; i++) {
+            for (int y = top; y <= bottom; y++) {
+                win.move(y, 0);
+                win.clrtoeol();
+                win.addstr(text(i - (bottom - y)));
+            }
+            win.refresh();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long region(Window win, int top, int bottom, int lines) {
+        ScrollRegion region = new ScrollRegion(win, top, bottom);
+        long start = System.nanoTime();
+        for (int i = 0; i < lines; i++) {
+            region.scroll(1);
+            win.mvaddstr(bottom, 0, text(i));
+            win.refresh();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static String text(int line) {
+        return line < 0 ? "" : "line " + line + " of the scroll benchmark";
+    }
+}
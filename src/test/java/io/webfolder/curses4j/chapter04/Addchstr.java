@@ -3,7 +3,7 @@ package io.webfolder.curses4j.chapter04;
 import static io.webfolder.curses4j.Curses.A_BOLD;
 import static io.webfolder.curses4j.Curses.A_REVERSE;
 import static io.webfolder.curses4j.Curses.A_UNDERLINE;
-import static io.webfolder.curses4j.Curses.addch;
+import static io.webfolder.curses4j.Curses.addchnstr;
 import static io.webfolder.curses4j.Curses.endwin;
 import static io.webfolder.curses4j.Curses.getch;
 import static io.webfolder.curses4j.Curses.initscr;
@@ -19,9 +19,7 @@ public class Addchstr {
 
         initscr();
 
-        for (int i = 0; i < string.length; i++) {
-            addch(string[i]);
-        }
+        addchnstr(string, 0, string.length);
 
         refresh();
         getch();